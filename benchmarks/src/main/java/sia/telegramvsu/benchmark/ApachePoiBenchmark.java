@@ -0,0 +1,69 @@
+package sia.telegramvsu.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sia.telegramvsu.service.ApachePoi;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Чтение одного файла: полная модель XSSFWorkbook против потокового SAX
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ApachePoiBenchmark {
+
+    // Групп в файле: небольшой факультет, типичный, магистратура всех факультетов в одном листе
+    @Param({"20", "60", "150"})
+    public int groups;
+
+    private File folder;
+    private File workbook;
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Fixtures.folder(groups);
+        workbook = new File(folder, "1.xlsx");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(folder);
+    }
+
+    @Benchmark
+    public List<List<String>> parseExcelWithMergedCells() throws IOException {
+        return ApachePoi.parseExcelWithMergedCells(workbook);
+    }
+
+    @Benchmark
+    public void streamExcelWithMergedCells(Blackhole blackhole) throws IOException {
+        ApachePoi.streamExcelWithMergedCells(workbook, new ApachePoi.SheetRowHandler() {
+            @Override
+            public void sheetSize(int rowCount, int columnCount) {
+                blackhole.consume(rowCount);
+            }
+
+            @Override
+            public void row(int rowNum, List<String> cells) {
+                blackhole.consume(cells);
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package sia.telegramvsu.benchmark;
+
+import sia.telegramvsu.service.ExcelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Папка с несколькими файлами факультетов, как после DownloadExcel
+final class Fixtures {
+
+    static final int FILES = 4;
+    private static final String[] PREFIXES = {"24ИСиТ", "23БИО", "22ПЕД", "21ЮР"};
+
+    private Fixtures() {
+    }
+
+    static File folder(int groupsPerFile) throws IOException {
+        File folder = Files.createTempDirectory("schedule-bench-" + groupsPerFile + "-").toFile();
+        for (int file = 0; file < FILES; file++) {
+            SyntheticSchedule.write(new File(folder, (file + 1) + ".xlsx"), PREFIXES[file], groupsPerFile, 31L * file + groupsPerFile);
+        }
+        return folder;
+    }
+
+    // Парсер без Spring; снимок на диск не пишется, чтобы не мерить запись файла
+    static ExcelParser parser(File folder, boolean streaming, boolean parallel) {
+        ExcelParser parser = new ExcelParser();
+        parser.setFilePath(folder.getPath() + File.separator);
+        parser.setStreaming(streaming);
+        parser.setParallel(parallel);
+        parser.setSnapshotEnabled(false);
+        return parser;
+    }
+
+    static void delete(File folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
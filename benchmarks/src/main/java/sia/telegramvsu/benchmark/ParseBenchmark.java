@@ -0,0 +1,66 @@
+package sia.telegramvsu.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sia.telegramvsu.model.ScheduleSnapshot;
+import sia.telegramvsu.service.ExcelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Полный разбор папки из четырёх файлов и публикация среза с индексами
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"20", "60", "150"})
+    public int groups;
+
+    @Param({"true", "false"})
+    public boolean streaming;
+
+    // gc.alloc.rate.norm считает только поток бенчмарка: при parallel=true выделения в потоках разбора не видны
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private File folder;
+    private ExcelParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Fixtures.folder(groups);
+    }
+
+    // Новый парсер на каждый вызов: иначе неизменённые файлы не разбираются заново
+    @Setup(Level.Invocation)
+    public void newParser() {
+        parser = Fixtures.parser(folder, streaming, parallel);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(folder);
+    }
+
+    @Benchmark
+    public ScheduleSnapshot parseExel() {
+        parser.parseExel();
+        return parser.getSnapshot();
+    }
+}
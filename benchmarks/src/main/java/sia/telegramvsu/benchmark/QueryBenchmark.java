@@ -0,0 +1,103 @@
+package sia.telegramvsu.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sia.telegramvsu.model.NumberLesson;
+import sia.telegramvsu.model.WeekDay;
+import sia.telegramvsu.service.ExcelParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Запросы пользователей к разобранному срезу. С renderCache=false каждый ответ собирается заново,
+// то есть это стоимость formatLessons и поиска по срезу без кеша готового HTML
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    @Param({"20", "60", "150"})
+    public int groups;
+
+    @Param({"true", "false"})
+    public boolean renderCache;
+
+    private File folder;
+    private ExcelParser parser;
+    private String[] groupNames;
+    private String[] teacherNames;
+
+    private static final WeekDay[] DAYS = WeekDay.values();
+    private static final NumberLesson[] NUMBERS = NumberLesson.values();
+
+    // У каждого потока свой обход групп и преподавателей, чтобы запросы не повторяли один и тот же ключ
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++ & Integer.MAX_VALUE;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Fixtures.folder(groups);
+        parser = Fixtures.parser(folder, true, false);
+        parser.setRenderCacheSize(renderCache ? 10_000 : 0);
+        parser.parseExel();
+        if (parser.getSnapshot().isEmpty()) {
+            throw new IllegalStateException("Fixture schedule not parsed: " + folder);
+        }
+        groupNames = parser.getSnapshot().getSchedule().keySet().stream().sorted().toArray(String[]::new);
+        teacherNames = parser.getSnapshot().getTeachers().keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(folder);
+    }
+
+    @Benchmark
+    public String getDaySubjectsStudent(Cursor cursor) {
+        int i = cursor.next();
+        return parser.getDaySubjectsStudent(DAYS[i % DAYS.length], groupNames[i % groupNames.length]);
+    }
+
+    @Benchmark
+    public String getDaySubjectsTeacher(Cursor cursor) {
+        int i = cursor.next();
+        return parser.getDaySubjectsTeacher(DAYS[i % DAYS.length], teacherNames[i % teacherNames.length]);
+    }
+
+    @Benchmark
+    public String getWeekSubjectsStudent(Cursor cursor) {
+        return parser.getWeekSubjectsStudent(groupNames[cursor.next() % groupNames.length]);
+    }
+
+    @Benchmark
+    public String getWeekSubjectsTeacher(Cursor cursor) {
+        return parser.getWeekSubjectsTeacher(teacherNames[cursor.next() % teacherNames.length]);
+    }
+
+    @Benchmark
+    public List<String> getFreeAuditoriums(Cursor cursor) {
+        int i = cursor.next();
+        return parser.getFreeAuditoriums(DAYS[i % DAYS.length], NUMBERS[i % NUMBERS.length]);
+    }
+}
@@ -0,0 +1,101 @@
+package sia.telegramvsu.benchmark;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import sia.telegramvsu.model.WeekDay;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+// Файл расписания в том виде, который ждёт ExcelParser: группы в строке 13, занятия с 15-й строки,
+// три строки на пару (предмет, преподаватель, аудитория), день и дата объединены по вертикали,
+// лекции потока объединены по горизонтали на несколько групп
+final class SyntheticSchedule {
+
+    static final int LESSONS_PER_DAY = 8;
+
+    private static final String[] TIMES = {"8.30-9.50", "10.05-11.25", "11.55-13.15", "13.25-14.45",
+            "14.55-16.15", "16.25-17.45", "17.55-19.15", "19.25-20.45"};
+    private static final String[] SUBJECTS = {"Математический анализ", "Линейная алгебра", "Программирование",
+            "Базы данных", "Операционные системы", "Компьютерные сети", "Физика", "Философия", "Английский язык",
+            "Физическая культура", "Дискретная математика", "Теория вероятностей", "Экономика", "История"};
+    private static final String[] SURNAMES = {"Дрозд", "Ковалёв", "Новик", "Шатило", "Мельник", "Петров",
+            "Сидоренко", "Лукашевич", "Жук", "Кравченко", "Гончар", "Зайцев"};
+
+    private SyntheticSchedule() {
+    }
+
+    // Одинаковые параметры дают одинаковый файл, поэтому прогоны можно сравнивать между собой
+    static void write(File file, String groupPrefix, int groupCount, long seed) throws IOException {
+        Random random = new Random(seed);
+        int teacherCount = Math.max(5, groupCount / 2);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream fos = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Расписание");
+            sheet.createRow(0).createCell(0).setCellValue("Расписание занятий");
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, groupCount + 2));
+
+            Row groups = sheet.createRow(13);
+            groups.createCell(0).setCellValue("День");
+            groups.createCell(2).setCellValue("Время");
+            for (int g = 0; g < groupCount; g++) {
+                groups.createCell(3 + g).setCellValue(" " + groupPrefix + (g / 2 + 1) + "д_" + (g % 2 + 1) + " ");
+            }
+
+            int rowNum = 15;
+            for (WeekDay weekDay : WeekDay.values()) {
+                int dayStart = rowNum;
+                for (int lesson = 1; lesson <= LESSONS_PER_DAY; lesson++) {
+                    Row first = sheet.createRow(rowNum);
+                    Row second = sheet.createRow(rowNum + 1);
+                    Row third = sheet.createRow(rowNum + 2);
+                    first.createCell(2).setCellValue("№" + lesson);
+                    second.createCell(2).setCellValue(TIMES[lesson - 1]);
+
+                    // Пар к вечеру меньше: первые четыре заняты почти всегда, последние - редко
+                    double busy = lesson <= 4 ? 0.8 : 0.25;
+                    for (int g = 0; g < groupCount; ) {
+                        int width = 1;
+                        if (random.nextDouble() < busy) {
+                            // лекция на поток из двух-четырёх групп
+                            width = random.nextDouble() < 0.3 ? Math.min(groupCount - g, 2 + random.nextInt(3)) : 1;
+                            first.createCell(3 + g).setCellValue(SUBJECTS[random.nextInt(SUBJECTS.length)]
+                                    + (width > 1 ? " (лек)" : " (пр)"));
+                            second.createCell(3 + g).setCellValue(teacher(random.nextInt(teacherCount)));
+                            third.createCell(3 + g).setCellValue(auditorium(random));
+                            if (width > 1) {
+                                for (int r = rowNum; r < rowNum + 3; r++) {
+                                    sheet.addMergedRegion(new CellRangeAddress(r, r, 3 + g, 2 + g + width));
+                                }
+                            }
+                        }
+                        g += width;
+                    }
+                    rowNum += 3;
+                }
+                sheet.getRow(dayStart).createCell(0).setCellValue(weekDay.dayString);
+                sheet.getRow(dayStart).createCell(1).setCellValue(String.format("%02d.09", weekDay.ordinal() + 1));
+                sheet.addMergedRegion(new CellRangeAddress(dayStart, rowNum - 1, 0, 0));
+                sheet.addMergedRegion(new CellRangeAddress(dayStart, rowNum - 1, 1, 1));
+            }
+
+            for (int footer = 0; footer < 5; footer++) {
+                sheet.createRow(rowNum + footer).createCell(3).setCellValue("Декан факультета");
+            }
+            workbook.write(fos);
+        }
+    }
+
+    static String teacher(int id) {
+        return SURNAMES[id % SURNAMES.length] + (id >= SURNAMES.length ? "-" + id / SURNAMES.length : "")
+                + " " + (char) ('А' + id % 20) + ". " + (char) ('Б' + id % 17) + ".";
+    }
+
+    private static String auditorium(Random random) {
+        if (random.nextInt(40) == 0) return "Спортивный зал";
+        return (1 + random.nextInt(5)) + "-" + (1 + random.nextInt(4)) + String.format("%02d", 1 + random.nextInt(30));
+    }
+}
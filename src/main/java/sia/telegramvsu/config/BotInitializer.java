@@ -2,22 +2,40 @@ package sia.telegramvsu.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 import sia.telegramvsu.service.TelegramBot;
+import sia.telegramvsu.service.WebhookController;
 
 @Slf4j
 @Component
 public class BotInitializer {
     @Autowired
     TelegramBot bot;
+    @Autowired
+    WebhookController webhookController;
+
+    // polling - бот сам забирает обновления; webhook - Telegram присылает их на webhook.url
+    @Value("${bot.mode:polling}")
+    private String mode;
+    @Value("${webhook.url:}")
+    private String webhookUrl;
+    @Value("${webhook.max-connections:40}")
+    private int maxConnections;
 
     @EventListener({ContextRefreshedEvent.class})
     public void init() throws TelegramApiException {
+        if ("webhook".equals(mode)) {
+            initWebhook();
+            return;
+        }
+
         TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
 
         try {
@@ -26,4 +44,18 @@ public class BotInitializer {
             log.error("Error initializing bot" + e.getMessage());
         }
     }
+
+    // Без webhook.secret запуск прерывается: Telegram не должен слать обновления на незащищённый путь
+    private void initWebhook() {
+        webhookController.start(bot::offerUpdate);
+        try {
+            SetWebhook setWebhook = new SetWebhook();
+            setWebhook.setUrl(webhookUrl);
+            setWebhook.setSecretToken(webhookController.getSecret());
+            setWebhook.setMaxConnections(maxConnections);
+            bot.execute(setWebhook);
+        } catch (TelegramApiException e) {
+            log.error("Error initializing webhook" + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package sia.telegramvsu.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import sia.telegramvsu.service.BroadcastService;
+import sia.telegramvsu.service.ExcelParser;
+import sia.telegramvsu.service.ScheduleBootstrap;
+import sia.telegramvsu.service.TelegramSender;
+import sia.telegramvsu.service.UpdateDispatcher;
+import sia.telegramvsu.service.UserCache;
+import sia.telegramvsu.service.WebhookController;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Счётчики, которые сервисы уже ведут сами, в виде метрик Micrometer.
+// Таймеры путей (загрузка, разбор, запросы, маршруты, Bot API) регистрируются там, где измеряется время,
+// вызовы UserRepository меряет Spring Data (spring.data.repository.invocations)
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder scheduleMetrics(ExcelParser excelParser, ScheduleBootstrap scheduleBootstrap) {
+        return registry -> {
+            Gauge.builder("schedule.groups", excelParser, parser -> parser.getSnapshot().getSchedule().size())
+                    .register(registry);
+            Gauge.builder("schedule.teachers", excelParser, parser -> parser.getSnapshot().getTeachers().size())
+                    .register(registry);
+            Gauge.builder("schedule.lessons", excelParser, parser -> parser.getSnapshot().getLessonCount())
+                    .register(registry);
+            Gauge.builder("schedule.auditoriums", excelParser, parser -> parser.getSnapshot().getAuditoriums().size())
+                    .register(registry);
+            Gauge.builder("schedule.version", excelParser, parser -> parser.getSnapshot().getVersion())
+                    .register(registry);
+            Gauge.builder("schedule.age", excelParser, parser -> parser.getSnapshot().isEmpty() ? Double.NaN
+                            : Duration.between(parser.getSnapshot().getCreatedAt(), Instant.now()).toSeconds())
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("schedule.render.cache.size", excelParser, ExcelParser::getRenderCacheSize)
+                    .register(registry);
+            for (ScheduleBootstrap.State state : ScheduleBootstrap.State.values()) {
+                Gauge.builder("schedule.state", scheduleBootstrap, bootstrap -> bootstrap.getState() == state ? 1 : 0)
+                        .tag("state", state.name())
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder userCacheMetrics(UserCache userCache) {
+        return registry -> {
+            FunctionCounter.builder("users.cache.requests", userCache, UserCache::getHits).tag("result", "hit").register(registry);
+            FunctionCounter.builder("users.cache.requests", userCache, UserCache::getMisses).tag("result", "miss").register(registry);
+            FunctionCounter.builder("users.cache.flushes", userCache, UserCache::getFlushes).register(registry);
+            FunctionCounter.builder("users.cache.flushed", userCache, UserCache::getFlushedUsers).register(registry);
+            FunctionCounter.builder("users.cache.flush.errors", userCache, UserCache::getFlushErrors).register(registry);
+            Gauge.builder("users.cache.pending", userCache, UserCache::getPending).register(registry);
+            Gauge.builder("users.cache.size", userCache, UserCache::size).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder updateMetrics(UpdateDispatcher updateDispatcher, WebhookController webhookController) {
+        return registry -> {
+            Gauge.builder("bot.updates.in.flight", updateDispatcher, UpdateDispatcher::getInFlight).register(registry);
+            Gauge.builder("bot.updates.active.threads", updateDispatcher, UpdateDispatcher::getActiveThreads).register(registry);
+            FunctionCounter.builder("bot.updates", updateDispatcher, UpdateDispatcher::getProcessed).tag("result", "processed").register(registry);
+            FunctionCounter.builder("bot.updates", updateDispatcher, UpdateDispatcher::getRejected).tag("result", "rejected").register(registry);
+            FunctionCounter.builder("bot.updates", updateDispatcher, UpdateDispatcher::getFailed).tag("result", "failed").register(registry);
+            FunctionCounter.builder("bot.webhook.requests", webhookController, WebhookController::getAccepted).tag("result", "accepted").register(registry);
+            FunctionCounter.builder("bot.webhook.requests", webhookController, WebhookController::getRejected).tag("result", "rejected").register(registry);
+            FunctionCounter.builder("bot.webhook.requests", webhookController, WebhookController::getUnauthorized).tag("result", "unauthorized").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder senderMetrics(TelegramSender telegramSender, BroadcastService broadcastService) {
+        return registry -> {
+            Gauge.builder("telegram.queue.depth", telegramSender, TelegramSender::getQueueDepth).register(registry);
+            FunctionCounter.builder("telegram.messages", telegramSender, TelegramSender::getSent).tag("result", "sent").register(registry);
+            FunctionCounter.builder("telegram.messages", telegramSender, TelegramSender::getFailed).tag("result", "failed").register(registry);
+            FunctionCounter.builder("telegram.messages", telegramSender, TelegramSender::getRetried).tag("result", "retried").register(registry);
+            Gauge.builder("broadcast.running", broadcastService, service -> service.isRunning() ? 1 : 0).register(registry);
+            Gauge.builder("broadcast.last.sent", broadcastService,
+                    service -> service.getLastReport() == null ? 0 : service.getLastReport().sent()).register(registry);
+            Gauge.builder("broadcast.last.duration", broadcastService,
+                    service -> service.getLastReport() == null ? 0 : service.getLastReport().millis())
+                    .baseUnit("milliseconds").register(registry);
+        };
+    }
+}
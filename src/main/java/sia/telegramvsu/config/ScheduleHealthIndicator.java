@@ -0,0 +1,34 @@
+package sia.telegramvsu.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import sia.telegramvsu.model.ScheduleSnapshot;
+import sia.telegramvsu.service.ExcelParser;
+import sia.telegramvsu.service.ScheduleBootstrap;
+
+// Входит в группу readiness (management.endpoint.health.group.readiness): пока расписание не загружено,
+// экземпляр не готов принимать трафик. Старый срез (STALE) отвечать не мешает
+@Component
+public class ScheduleHealthIndicator implements HealthIndicator {
+
+    private final ScheduleBootstrap scheduleBootstrap;
+    private final ExcelParser excelParser;
+
+    public ScheduleHealthIndicator(ScheduleBootstrap scheduleBootstrap, ExcelParser excelParser) {
+        this.scheduleBootstrap = scheduleBootstrap;
+        this.excelParser = excelParser;
+    }
+
+    @Override
+    public Health health() {
+        ScheduleBootstrap.State state = scheduleBootstrap.getState();
+        Health.Builder health = state == ScheduleBootstrap.State.LOADING ? Health.outOfService() : Health.up();
+        ScheduleSnapshot snapshot = excelParser.getSnapshot();
+        return health
+                .withDetail("state", state.name())
+                .withDetail("version", snapshot.getVersion())
+                .withDetail("groups", snapshot.getSchedule().size())
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package sia.telegramvsu.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Поиск группы или преподавателя по тому, что ввёл пользователь: точный по нормализованному имени и нечёткий по триграммам
+public final class NameIndex {
+
+    private static final int CANDIDATES = 20;
+    private static final int[] NO_IDS = new int[0];
+
+    private final String[] names;
+    private final String[] normalized;
+    private final Map<String, String> exact = new HashMap<>();
+    private final Map<String, int[]> trigrams = new HashMap<>();
+
+    public NameIndex(Collection<String> names) {
+        this.names = new TreeSet<>(names).toArray(String[]::new);
+        this.normalized = new String[this.names.length];
+
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int id = 0; id < this.names.length; id++) {
+            normalized[id] = normalize(this.names[id]);
+            exact.putIfAbsent(normalized[id], this.names[id]);
+            for (String trigram : trigrams(normalized[id])) {
+                postings.computeIfAbsent(trigram, key -> new ArrayList<>()).add(id);
+            }
+        }
+        postings.forEach((trigram, ids) -> trigrams.put(trigram, ids.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    public String find(String input) {
+        return input == null ? null : exact.get(normalize(input));
+    }
+
+    public List<String> suggest(String input, int limit) {
+        if (input == null) return List.of();
+        String query = normalize(input);
+        if (query.isEmpty()) return List.of();
+
+        int[] shared = new int[names.length];
+        List<Integer> candidates = new ArrayList<>();
+        for (String trigram : trigrams(query)) {
+            for (int id : trigrams.getOrDefault(trigram, NO_IDS)) {
+                if (shared[id]++ == 0) candidates.add(id);
+            }
+        }
+        candidates.sort(Comparator.comparingInt((Integer id) -> -shared[id]));
+
+        int maxDistance = Math.max(2, query.length() / 3);
+        List<int[]> scored = new ArrayList<>();
+        for (int id : candidates.subList(0, Math.min(CANDIDATES, candidates.size()))) {
+            int distance = distance(query, normalized[id]);
+            if (distance <= maxDistance) scored.add(new int[]{id, distance});
+        }
+        scored.sort(Comparator.<int[]>comparingInt(score -> score[1]).thenComparingInt(score -> -shared[score[0]]));
+
+        List<String> suggestions = new ArrayList<>();
+        for (int i = 0; i < scored.size() && suggestions.size() < limit; i++) {
+            suggestions.add(names[scored.get(i)[0]]);
+        }
+        // Короткий запрос вроде "24" или "ИСиТ" далёк от полных имён по расстоянию правки:
+        // добираем имена, которые с него начинаются, потом те, что его содержат
+        addContaining(query, true, suggestions, limit);
+        addContaining(query, false, suggestions, limit);
+        return suggestions;
+    }
+
+    // Имён - сотни, поэтому простой проход по всем
+    private void addContaining(String query, boolean prefix, List<String> suggestions, int limit) {
+        for (int id = 0; id < names.length && suggestions.size() < limit; id++) {
+            boolean matches = prefix ? normalized[id].startsWith(query) : normalized[id].contains(query);
+            if (matches && !suggestions.contains(names[id])) suggestions.add(names[id]);
+        }
+    }
+
+    // Регистр, пробелы и точки не важны, латинские буквы-двойники считаются кириллическими
+    public static String normalize(String input) {
+        StringBuilder sb = new StringBuilder(input.length());
+        for (int i = 0; i < input.length(); i++) {
+            char c = Character.toLowerCase(input.charAt(i));
+            if (Character.isWhitespace(c) || c == '.') continue;
+            sb.append(switch (c) {
+                case 'a' -> 'а';
+                case 'b' -> 'в';
+                case 'c' -> 'с';
+                case 'e', 'ё' -> 'е';
+                case 'h' -> 'н';
+                case 'k' -> 'к';
+                case 'm' -> 'м';
+                case 'o' -> 'о';
+                case 'p' -> 'р';
+                case 't' -> 'т';
+                case 'u' -> 'и';
+                case 'x' -> 'х';
+                case 'y' -> 'у';
+                default -> c;
+            });
+        }
+        return sb.toString();
+    }
+
+    private static Set<String> trigrams(String normalized) {
+        String padded = "  " + normalized + " ";
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -19,4 +19,17 @@ public enum NumberLesson {
     public String getNumber() {
         return number;
     }
+
+    // Номер пары из ячейки расписания: "№1", "1" или "1.0"; null, если это не номер пары
+    public static NumberLesson of(String cell) {
+        if (cell == null) return null;
+        String digits = cell.replace("№", "").trim();
+        if (digits.endsWith(".0")) {
+            digits = digits.substring(0, digits.length() - 2);
+        }
+        for (NumberLesson numberLesson : values()) {
+            if (numberLesson.number.substring(1).equals(digits)) return numberLesson;
+        }
+        return null;
+    }
 }
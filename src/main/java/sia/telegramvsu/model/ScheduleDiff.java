@@ -0,0 +1,86 @@
+package sia.telegramvsu.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Что поменялось в расписании группы или преподавателя между двумя разборами; дата занятия не учитывается
+public final class ScheduleDiff {
+
+    public enum Type {ADDED, REMOVED, ROOM, TIME}
+
+    public record Change(Type type, WeekDay day, LessonVSU before, LessonVSU after) {
+    }
+
+    private ScheduleDiff() {
+    }
+
+    // Имена, которых нет в новом расписании, пропускаются: пропавший файл факультета не повод писать всем
+    public static Map<String, List<Change>> compare(Map<String, Map<WeekDay, List<LessonVSU>>> before,
+                                                    Map<String, Map<WeekDay, List<LessonVSU>>> after) {
+        Map<String, List<Change>> changes = new TreeMap<>();
+        after.forEach((name, days) -> {
+            Map<WeekDay, List<LessonVSU>> previous = before.get(name);
+            // Группы неизменённых файлов переходят в новый срез теми же объектами
+            if (previous == null || previous == days) return;
+
+            List<Change> nameChanges = compareDays(previous, days);
+            if (!nameChanges.isEmpty()) changes.put(name, nameChanges);
+        });
+        return changes;
+    }
+
+    public static List<Change> compareDays(Map<WeekDay, List<LessonVSU>> before, Map<WeekDay, List<LessonVSU>> after) {
+        List<Change> changes = new ArrayList<>();
+        for (WeekDay day : WeekDay.values()) {
+            Map<String, LessonVSU> old = bySlot(before.getOrDefault(day, List.of()));
+            Map<String, LessonVSU> current = bySlot(after.getOrDefault(day, List.of()));
+            if (old.equals(current)) continue;
+
+            List<LessonVSU> removed = new ArrayList<>();
+            List<LessonVSU> added = new ArrayList<>();
+            old.forEach((slot, lesson) -> {
+                LessonVSU next = current.get(slot);
+                if (next == null || !next.getSubject().equals(lesson.getSubject())) {
+                    removed.add(lesson);
+                    if (next != null) added.add(next);
+                } else if (!Objects.equals(next.getAuditorium(), lesson.getAuditorium())) {
+                    changes.add(new Change(Type.ROOM, day, lesson, next));
+                }
+            });
+            current.forEach((slot, lesson) -> {
+                if (!old.containsKey(slot)) added.add(lesson);
+            });
+
+            // Тот же предмет у того же преподавателя на другой паре - это перенос, а не отмена и новое занятие
+            for (Iterator<LessonVSU> iterator = removed.iterator(); iterator.hasNext(); ) {
+                LessonVSU lesson = iterator.next();
+                LessonVSU moved = added.stream()
+                        .filter(candidate -> candidate.getSubject().equals(lesson.getSubject())
+                                && Objects.equals(candidate.getLector(), lesson.getLector()))
+                        .findFirst().orElse(null);
+                if (moved == null) continue;
+                iterator.remove();
+                added.remove(moved);
+                changes.add(new Change(Type.TIME, day, lesson, moved));
+            }
+            removed.forEach(lesson -> changes.add(new Change(Type.REMOVED, day, lesson, null)));
+            added.forEach(lesson -> changes.add(new Change(Type.ADDED, day, null, lesson)));
+        }
+        return changes;
+    }
+
+    // Пустые клетки расписания занятиями не считаются
+    private static Map<String, LessonVSU> bySlot(List<LessonVSU> lessons) {
+        Map<String, LessonVSU> slots = new LinkedHashMap<>();
+        for (LessonVSU lesson : lessons) {
+            if (lesson.getSubject() == null || lesson.getSubject().isEmpty()) continue;
+            slots.merge(lesson.getNumber() + '\n' + lesson.getTime(), lesson, (first, second) -> first);
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,188 @@
+package sia.telegramvsu.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Неизменяемый срез расписания: всё, что нужно запросам, строится до публикации и больше не меняется
+@Getter
+public final class ScheduleSnapshot {
+
+    public static final ScheduleSnapshot EMPTY = new ScheduleSnapshot(0, Map.of());
+
+    private final long version;
+    private final Instant createdAt;
+    private final Map<String, Map<WeekDay, List<LessonVSU>>> schedule;
+    private final Set<String> auditoriums;
+    // Преподаватель -> день -> занятия: пары одного номера объединены по группам и отсортированы по номеру
+    private final Map<String, Map<WeekDay, List<LessonVSU>>> teachers;
+    private final NameIndex groupNames;
+    private final NameIndex teacherNames;
+    // Занятия с непустым предметом во всех группах
+    private final int lessonCount;
+
+    // Аудитории пронумерованы в порядке сортировки, поэтому обход битов сразу даёт отсортированный список
+    @Getter(AccessLevel.NONE)
+    private final String[] auditoriumNames;
+    @Getter(AccessLevel.NONE)
+    private final BitSet listedAuditoriums;
+    @Getter(AccessLevel.NONE)
+    private final BitSet[][] busyAuditoriums;
+
+    public ScheduleSnapshot(long version, Map<String, Map<WeekDay, List<LessonVSU>>> schedule) {
+        this(version, Instant.now(), schedule);
+    }
+
+    // createdAt - когда расписание было разобрано, а не когда срез загружен с диска
+    public ScheduleSnapshot(long version, Instant createdAt, Map<String, Map<WeekDay, List<LessonVSU>>> schedule) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.schedule = Collections.unmodifiableMap(new HashMap<>(schedule));
+        this.auditoriums = Collections.unmodifiableSet(collectAuditoriums(schedule));
+        this.teachers = Collections.unmodifiableMap(collectTeachers(schedule));
+        this.groupNames = new NameIndex(this.schedule.keySet());
+        this.teacherNames = new NameIndex(this.teachers.keySet());
+        this.lessonCount = (int) schedule.values().stream()
+                .flatMap(days -> days.values().stream())
+                .flatMap(List::stream)
+                .filter(lesson -> lesson.getSubject() != null && !lesson.getSubject().isEmpty())
+                .count();
+
+        this.auditoriumNames = auditoriums.stream().filter(auditorium -> !auditorium.isBlank()).sorted().toArray(String[]::new);
+        this.listedAuditoriums = new BitSet(auditoriumNames.length);
+        for (int id = 0; id < auditoriumNames.length; id++) {
+            // как и раньше, в списке свободных только короткие обозначения аудиторий
+            if (auditoriumNames[id].length() < 12) listedAuditoriums.set(id);
+        }
+        this.busyAuditoriums = collectBusyAuditoriums(schedule, auditoriumNames);
+    }
+
+    public boolean isEmpty() {
+        return schedule.isEmpty();
+    }
+
+    public Map<WeekDay, List<LessonVSU>> getGroup(String groupName) {
+        return schedule.getOrDefault(groupName, Map.of());
+    }
+
+    public List<LessonVSU> getLessons(String groupName, WeekDay weekDay) {
+        return getGroup(groupName).getOrDefault(weekDay, List.of());
+    }
+
+    public List<LessonVSU> getTeacherLessons(String nameTeacher, WeekDay weekDay) {
+        if (nameTeacher == null) return List.of();
+        return teachers.getOrDefault(nameTeacher.trim(), Map.of()).getOrDefault(weekDay, List.of());
+    }
+
+    public List<String> getFreeAuditoriums(WeekDay weekDay, NumberLesson numberLesson) {
+        BitSet free = (BitSet) listedAuditoriums.clone();
+        if (weekDay != null) {
+            free.andNot(busyAuditoriums[weekDay.ordinal()][numberLesson.ordinal()]);
+        } else {
+            // день не выбран: аудитория занята, если занята в этот номер пары хоть в один день
+            for (BitSet[] day : busyAuditoriums) {
+                free.andNot(day[numberLesson.ordinal()]);
+            }
+        }
+
+        List<String> list = new ArrayList<>(free.cardinality());
+        for (int id = free.nextSetBit(0); id >= 0; id = free.nextSetBit(id + 1)) {
+            list.add(auditoriumNames[id]);
+        }
+        return list;
+    }
+
+    private static BitSet[][] collectBusyAuditoriums(Map<String, Map<WeekDay, List<LessonVSU>>> schedule, String[] auditoriumNames) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < auditoriumNames.length; id++) {
+            ids.put(auditoriumNames[id], id);
+        }
+
+        BitSet[][] busy = new BitSet[WeekDay.values().length][NumberLesson.values().length];
+        for (BitSet[] day : busy) {
+            for (int number = 0; number < day.length; number++) {
+                day[number] = new BitSet(auditoriumNames.length);
+            }
+        }
+
+        for (Map<WeekDay, List<LessonVSU>> groupLessons : schedule.values()) {
+            for (Map.Entry<WeekDay, List<LessonVSU>> dayEntry : groupLessons.entrySet()) {
+                for (LessonVSU lesson : dayEntry.getValue()) {
+                    NumberLesson numberLesson = NumberLesson.of(lesson.getNumber());
+                    Integer id = ids.get(lesson.getAuditorium());
+                    if (numberLesson != null && id != null) {
+                        busy[dayEntry.getKey().ordinal()][numberLesson.ordinal()].set(id);
+                    }
+                }
+            }
+        }
+        return busy;
+    }
+
+    private static Map<String, Map<WeekDay, List<LessonVSU>>> collectTeachers(Map<String, Map<WeekDay, List<LessonVSU>>> schedule) {
+        Map<String, Map<WeekDay, Map<String, LessonVSU>>> slots = new HashMap<>();
+
+        for (String group : new TreeSet<>(schedule.keySet())) {
+            for (Map.Entry<WeekDay, List<LessonVSU>> dayEntry : schedule.get(group).entrySet()) {
+                for (LessonVSU lesson : dayEntry.getValue()) {
+                    String lector = lesson.getLector().trim();
+                    if (lector.isEmpty()) continue;
+
+                    Map<String, LessonVSU> daySlots = slots
+                            .computeIfAbsent(lector, teacher -> new EnumMap<>(WeekDay.class))
+                            .computeIfAbsent(dayEntry.getKey(), day -> new LinkedHashMap<>());
+
+                    // В поле преподавателя у занятия преподавателя записываются группы
+                    String slotKey = lesson.getNumber() + '\n' + lesson.getSubject();
+                    LessonVSU slot = daySlots.get(slotKey);
+                    if (slot == null) {
+                        slot = lesson.clone();
+                        slot.setLector(group);
+                        daySlots.put(slotKey, slot);
+                    } else {
+                        slot.setLector(slot.getLector() + ", " + group);
+                    }
+                }
+            }
+        }
+
+        Map<String, Map<WeekDay, List<LessonVSU>>> teachers = new HashMap<>();
+        slots.forEach((lector, days) -> {
+            Map<WeekDay, List<LessonVSU>> teacherDays = new EnumMap<>(WeekDay.class);
+            days.forEach((day, daySlots) -> {
+                List<LessonVSU> lessons = new ArrayList<>(daySlots.values());
+                lessons.sort(Comparator.comparing(LessonVSU::getNumber));
+                teacherDays.put(day, Collections.unmodifiableList(lessons));
+            });
+            teachers.put(lector, Collections.unmodifiableMap(teacherDays));
+        });
+        return teachers;
+    }
+
+    private static Set<String> collectAuditoriums(Map<String, Map<WeekDay, List<LessonVSU>>> schedule) {
+        Set<String> auditoriums = new HashSet<>();
+
+        for (Map<WeekDay, List<LessonVSU>> groupLessons : schedule.values()) {
+            for (List<LessonVSU> dayLessons : groupLessons.values()) {
+                for (LessonVSU lesson : dayLessons) {
+                    auditoriums.add(lesson.getAuditorium());
+                }
+            }
+        }
+
+        return auditoriums;
+    }
+}
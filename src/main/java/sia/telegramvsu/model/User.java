@@ -3,9 +3,12 @@ package sia.telegramvsu.model;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity(name = "users")
+@Table(indexes = @Index(name = "users_group_id", columnList = "group_name, id"))
 @Data
 public class User {
     @Id
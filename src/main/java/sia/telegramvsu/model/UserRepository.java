@@ -1,10 +1,21 @@
 package sia.telegramvsu.model;
 
 import org.apache.xmlbeans.impl.xb.xsdschema.Attribute;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface UserRepository extends CrudRepository<User, Long> {
     User getById(Long id);
 
     Long id(Long id);
+
+    List<User> findByGroupAndStatus(String group, String status);
+
+    // Следующая страница после (group, id): без OFFSET, поэтому дальние страницы не дороже первых
+    @Query("select u from users u where u.group is not null and (u.group > :group or (u.group = :group and u.id > :id)) order by u.group, u.id")
+    List<User> findPageAfter(@Param("group") String group, @Param("id") Long id, Pageable pageable);
 }
@@ -13,4 +13,12 @@ public enum WeekDay {
         this.lastRow = lastRow;
         this.dayString = dayString;
     }
+
+    // День по имени константы из данных кнопки; null, если такого дня нет
+    public static WeekDay of(String name) {
+        for (WeekDay weekDay : values()) {
+            if (weekDay.name().equals(name)) return weekDay;
+        }
+        return null;
+    }
 }
@@ -1,42 +1,281 @@
 package sia.telegramvsu.service;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class ApachePoi {
+
+    public interface SheetRowHandler {
+        void sheetSize(int rowCount, int columnCount);
+
+        void row(int rowNum, List<String> cells);
+    }
+
+    // Числа отдаём так же, как DOM-режим: String.valueOf(double), без учёта формата ячейки
+    private static final DataFormatter RAW_FORMATTER = new DataFormatter() {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return String.valueOf(value);
+        }
+    };
+
+    /**
+     * Потоковое чтение первого листа через SAX: строки отдаются по порядку, объединённые ячейки
+     * заполняются на лету. В памяти держится только текущая строка и активные объединённые области.
+     */
+    public static void streamExcelWithMergedCells(File file, SheetRowHandler handler) throws IOException {
+        Timer.Sample sample = Timer.start();
+        try {
+            readSheet(file, handler);
+        } finally {
+            sample.stop(fileTimer(file, "streaming"));
+        }
+    }
+
+    // Время разбора одного файла; имена файлов постоянны (1.xlsx, 2.xlsx...), поэтому годятся в теги
+    private static Timer fileTimer(File file, String mode) {
+        return Timer.builder("schedule.parse.file")
+                .tag("file", file.getName())
+                .tag("mode", mode)
+                .register(Metrics.globalRegistry);
+    }
+
+    private static void readSheet(File file, SheetRowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+
+            // Первый проход: размеры листа и объединённые области (mergeCells лежат после sheetData)
+            SheetLayout layout = new SheetLayout();
+            try (InputStream sheet = firstSheet(reader)) {
+                parseSheet(sheet, layout);
+            }
+            handler.sheetSize(layout.rowCount, layout.columnCount);
+
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            MergedRowEmitter emitter = new MergedRowEmitter(layout, handler);
+
+            try (InputStream sheet = firstSheet(reader)) {
+                parseSheet(sheet, new XSSFSheetXMLHandler(styles != null ? styles : new StylesTable(),
+                        strings, emitter, RAW_FORMATTER, true));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Error streaming " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static InputStream firstSheet(XSSFReader reader) throws IOException, OpenXML4JException {
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        if (!sheets.hasNext()) {
+            throw new IOException("Workbook has no sheets");
+        }
+        return sheets.next();
+    }
+
+    private static void parseSheet(InputStream sheet, ContentHandler contentHandler)
+            throws IOException, SAXException, ParserConfigurationException {
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(contentHandler);
+        parser.parse(new InputSource(sheet));
+    }
+
+    private static class SheetLayout extends DefaultHandler {
+        private int rowCount;
+        private int columnCount;
+        private int currentRow = -1;
+        private int currentColumn = -1;
+        private final Map<Integer, List<MergedRegion>> mergedByFirstRow = new HashMap<>();
+        private int mergedCount;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    currentRow = r != null ? Integer.parseInt(r) - 1 : currentRow + 1;
+                    currentColumn = -1;
+                    rowCount = Math.max(rowCount, currentRow + 1);
+                }
+                case "c" -> {
+                    String r = attributes.getValue("r");
+                    currentColumn = r != null ? new CellReference(r).getCol() : currentColumn + 1;
+                    columnCount = Math.max(columnCount, currentColumn + 1);
+                }
+                case "mergeCell" -> {
+                    CellRangeAddress region = CellRangeAddress.valueOf(attributes.getValue("ref"));
+                    mergedByFirstRow.computeIfAbsent(region.getFirstRow(), k -> new ArrayList<>())
+                            .add(new MergedRegion(mergedCount++, region));
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    // order - место области в файле: при пересечении побеждает та, что записана раньше, как в DOM-режиме
+    private record MergedRegion(int order, CellRangeAddress region) {
+    }
+
+    private static class MergedRowEmitter implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final SheetLayout layout;
+        private final SheetRowHandler handler;
+        // Упорядочены по месту в файле
+        private final List<MergedRegion> activeRegions = new ArrayList<>();
+        private final List<String> activeValues = new ArrayList<>();
+        private String[] current;
+        private int nextRow;
+
+        MergedRowEmitter(SheetLayout layout, SheetRowHandler handler) {
+            this.layout = layout;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            emitMissingRows(rowNum);
+            current = new String[layout.columnCount];
+            Arrays.fill(current, "");
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null || formattedValue == null) return;
+            int col = new CellReference(cellReference).getCol();
+            if (col < current.length) {
+                current[col] = formattedValue;
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            openRegions(rowNum, current);
+
+            boolean[] covered = new boolean[current.length];
+            for (int i = 0; i < activeRegions.size(); i++) {
+                CellRangeAddress region = activeRegions.get(i).region();
+                int lastCol = Math.min(region.getLastColumn(), current.length - 1);
+                for (int col = region.getFirstColumn(); col <= lastCol; col++) {
+                    if (!covered[col]) {
+                        covered[col] = true;
+                        current[col] = activeValues.get(i);
+                    }
+                }
+            }
+
+            emit(rowNum, current);
+        }
+
+        @Override
+        public void endSheet() {
+            emitMissingRows(layout.rowCount);
+        }
+
+        // Отсутствующие в файле строки DOM-режим отдаёт пустыми, без подстановки объединённых значений
+        private void emitMissingRows(int untilRow) {
+            while (nextRow < untilRow) {
+                String[] blank = new String[layout.columnCount];
+                Arrays.fill(blank, "");
+                openRegions(nextRow, null);
+                emit(nextRow, blank);
+            }
+        }
+
+        private void openRegions(int rowNum, String[] row) {
+            List<MergedRegion> starting = layout.mergedByFirstRow.get(rowNum);
+            if (starting == null) return;
+            for (MergedRegion merged : starting) {
+                int firstCol = merged.region().getFirstColumn();
+                int at = activeRegions.size();
+                while (at > 0 && activeRegions.get(at - 1).order() > merged.order()) at--;
+                activeRegions.add(at, merged);
+                activeValues.add(at, row != null && firstCol < row.length ? row[firstCol] : "");
+            }
+        }
+
+        private void emit(int rowNum, String[] row) {
+            handler.row(rowNum, Arrays.asList(row));
+            nextRow = rowNum + 1;
+
+            for (int i = activeRegions.size() - 1; i >= 0; i--) {
+                if (activeRegions.get(i).region().getLastRow() <= rowNum) {
+                    activeRegions.remove(i);
+                    activeValues.remove(i);
+                }
+            }
+        }
+    }
+
     public static List<List<String>> parseExcelWithMergedCells(File file) throws IOException {
+        Timer.Sample sample = Timer.start();
+        try {
+            return readWorkbook(file);
+        } finally {
+            sample.stop(fileTimer(file, "dom"));
+        }
+    }
+
+    private static List<List<String>> readWorkbook(File file) throws IOException {
         List<List<String>> list = new ArrayList<>();
 
         try (FileInputStream fis = new FileInputStream(file);
              XSSFWorkbook workbook = new XSSFWorkbook(fis)) {
 
             Sheet sheet = workbook.getSheetAt(0);
-            List<CellRangeAddress> mergedRegions = sheet.getMergedRegions();
+            int rowCount = sheet.getLastRowNum() + 1;
+            int maxColNum = getMaxColumnCount(sheet);
+            String[][] mergedValues = getMergedCellValues(sheet, rowCount, maxColNum);
 
-            for (int rowNum = 0; rowNum <= sheet.getLastRowNum(); rowNum++) {
+            for (int rowNum = 0; rowNum < rowCount; rowNum++) {
                 Row row = sheet.getRow(rowNum);
-                List<String> rowData = new ArrayList<>();
+                List<String> rowData = new ArrayList<>(maxColNum);
 
                 if (row != null) {
-                    int maxColNum = getMaxColumnCount(sheet);
-
                     for (int colNum = 0; colNum < maxColNum; colNum++) {
-                        String cellValue = getMergedCellValue(sheet, rowNum, colNum, mergedRegions);
+                        String cellValue = mergedValues[rowNum][colNum];
+                        if (cellValue == null) {
+                            Cell cell = row.getCell(colNum);
+                            cellValue = cell != null ? getCellValueAsString(cell) : "";
+                        }
                         rowData.add(cellValue);
                     }
                 }
 
                 if (rowData.isEmpty()) {
-                    for (int i = 0; i < getMaxColumnCount(sheet); i++) {
+                    for (int i = 0; i < maxColNum; i++) {
                         rowData.add("");
                     }
                 }
@@ -47,31 +286,32 @@ public class ApachePoi {
         return list;
     }
 
-    private static String getMergedCellValue(Sheet sheet, int rowNum, int colNum, List<CellRangeAddress> mergedRegions) {
-        // Проверяем, является ли ячейка частью объединенной области
-        for (CellRangeAddress mergedRegion : mergedRegions) {
-            if (mergedRegion.isInRange(rowNum, colNum)) {
-                // Возвращаем значение из первой ячейки объединенной области
-                Row firstRow = sheet.getRow(mergedRegion.getFirstRow());
-                if (firstRow != null) {
-                    Cell firstCell = firstRow.getCell(mergedRegion.getFirstColumn());
-                    if (firstCell != null) {
-                        return getCellValueAsString(firstCell);
-                    }
+    // Значение первой ячейки объединённой области для каждой покрытой ею ячейки, null для остальных
+    private static String[][] getMergedCellValues(Sheet sheet, int rowCount, int colCount) {
+        String[][] values = new String[rowCount][colCount];
+
+        for (CellRangeAddress mergedRegion : sheet.getMergedRegions()) {
+            String value = "";
+            Row firstRow = sheet.getRow(mergedRegion.getFirstRow());
+            if (firstRow != null) {
+                Cell firstCell = firstRow.getCell(mergedRegion.getFirstColumn());
+                if (firstCell != null) {
+                    value = getCellValueAsString(firstCell);
                 }
-                return "";
             }
-        }
 
-        // Если ячейка не объединена, возвращаем её значение
-        Row row = sheet.getRow(rowNum);
-        if (row != null) {
-            Cell cell = row.getCell(colNum);
-            if (cell != null) {
-                return getCellValueAsString(cell);
+            int lastRow = Math.min(mergedRegion.getLastRow(), rowCount - 1);
+            int lastCol = Math.min(mergedRegion.getLastColumn(), colCount - 1);
+            for (int rowNum = mergedRegion.getFirstRow(); rowNum <= lastRow; rowNum++) {
+                for (int colNum = mergedRegion.getFirstColumn(); colNum <= lastCol; colNum++) {
+                    // как и раньше, при пересечении областей побеждает первая
+                    if (values[rowNum][colNum] == null) {
+                        values[rowNum][colNum] = value;
+                    }
+                }
             }
         }
-        return "";
+        return values;
     }
 
     private static int getMaxColumnCount(Sheet sheet) {
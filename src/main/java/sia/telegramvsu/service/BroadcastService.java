@@ -0,0 +1,249 @@
+package sia.telegramvsu.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import sia.telegramvsu.model.LessonVSU;
+import sia.telegramvsu.model.ScheduleSnapshot;
+import sia.telegramvsu.model.User;
+import sia.telegramvsu.model.UserRepository;
+import sia.telegramvsu.model.WeekDay;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Вечерняя рассылка расписания на завтра: пользователи читаются страницами по (группа, id),
+// сообщение для группы собирается один раз, после каждой страницы запоминается, докуда дошли
+@Slf4j
+@Service
+public class BroadcastService {
+
+    private static final String CURSOR_FILE = "broadcast.properties";
+    // Дата дня в расписании: "20.10" или "20.10.2026"
+    private static final Pattern LESSON_DATE = Pattern.compile("\\s*(\\d{1,2})\\.(\\d{1,2})(\\.\\d{2,4})?\\s*");
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final ExcelParser excelParser;
+    private final TelegramSender telegramSender;
+
+    @Value("${path.excel}")
+    private String pathExcel;
+    @Value("${broadcast.enabled:false}")
+    private boolean enabled;
+    @Value("${broadcast.page-size:200}")
+    private int pageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Незаконченную рассылку ищем один раз - когда расписание загрузится после запуска
+    private volatile boolean resumeChecked;
+
+    // Итоги последней рассылки
+    public record Report(LocalDate date, int sent, int failed, int skipped, long millis) {
+        public double perSecond() {
+            return millis == 0 ? 0 : sent * 1000.0 / millis;
+        }
+    }
+
+    private volatile Report lastReport;
+
+    public BroadcastService(UserRepository userRepository, UserCache userCache, ExcelParser excelParser, TelegramSender telegramSender) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.excelParser = excelParser;
+        this.telegramSender = telegramSender;
+    }
+
+    @Scheduled(cron = "${broadcast.cron:0 0 19 * * *}")
+    public void broadcastTomorrow() {
+        if (!enabled) return;
+        broadcast(LocalDate.now().plusDays(1));
+    }
+
+    // Приложение перезапустили посреди вечерней рассылки: дослать её, не дожидаясь следующего вечера
+    @Scheduled(fixedDelayString = "${broadcast.resume-check:60000}")
+    public void resumeUnfinished() {
+        if (!enabled || resumeChecked) return;
+        resumeUnfinished(LocalDate.now().plusDays(1));
+    }
+
+    void resumeUnfinished(LocalDate date) {
+        if (excelParser.getSnapshot().isEmpty()) return;
+        resumeChecked = true;
+        Properties cursor = loadCursor();
+        if (date.toString().equals(cursor.getProperty("date")) && !Boolean.parseBoolean(cursor.getProperty("done"))) {
+            broadcast(date);
+        }
+    }
+
+    // null, если рассылать нечего или рассылка уже идёт
+    public Report broadcast(LocalDate date) {
+        if (date.getDayOfWeek() == DayOfWeek.SUNDAY) return null;
+        if (excelParser.getSnapshot().isEmpty()) {
+            log.warn("Broadcast skipped: schedule not loaded");
+            return null;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Broadcast already running");
+            return null;
+        }
+        try {
+            return run(date, WeekDay.valueOf(date.getDayOfWeek().name()));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Report run(LocalDate date, WeekDay day) {
+        long start = System.currentTimeMillis();
+        Properties cursor = loadCursor();
+        String group = "";
+        long id = Long.MIN_VALUE;
+        if (date.toString().equals(cursor.getProperty("date"))) {
+            if (Boolean.parseBoolean(cursor.getProperty("done"))) {
+                log.info("Broadcast for " + date + " already done");
+                return lastReport;
+            }
+            // Рассылку прервали - продолжаем с того места, где остановились
+            group = cursor.getProperty("group", "");
+            id = Long.parseLong(cursor.getProperty("id", String.valueOf(Long.MIN_VALUE)));
+            log.info("Broadcast for " + date + " resumed after " + group + " / " + id);
+        }
+
+        // Несохранённые регистрации тоже должны попасть в рассылку
+        userCache.flush();
+        ScheduleSnapshot snapshot = excelParser.getSnapshot();
+        Map<String, String> rendered = new HashMap<>();
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int skipped = 0;
+
+        while (true) {
+            List<User> page = userRepository.findPageAfter(group, id, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) break;
+
+            List<CompletableFuture<Boolean>> sends = new ArrayList<>(page.size());
+            for (User user : page) {
+                String text = rendered.computeIfAbsent(user.getStatus() + '\n' + user.getGroup(),
+                        key -> render(snapshot, user.getStatus(), user.getGroup(), date, day));
+                if (text.isEmpty()) {
+                    skipped++;
+                    continue;
+                }
+                SendMessage sendMessage = new SendMessage();
+                sendMessage.setChatId(user.getId());
+                sendMessage.setText(text);
+                sendMessage.setParseMode("HTML");
+                sends.add(telegramSender.send(user.getId(), sendMessage, TelegramSender.Priority.BULK)
+                        .thenApply(ok -> {
+                            (ok ? sent : failed).incrementAndGet();
+                            return ok;
+                        }));
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+
+            User last = page.get(page.size() - 1);
+            group = last.getGroup();
+            id = last.getId();
+            saveCursor(date, group, id, false);
+        }
+        saveCursor(date, group, id, true);
+
+        Report report = new Report(date, sent.get(), failed.get(), skipped, System.currentTimeMillis() - start);
+        lastReport = report;
+        log.info("Broadcast for " + date + ": sent " + report.sent() + ", failed " + report.failed()
+                + ", skipped " + report.skipped() + " in " + report.millis() + " ms ("
+                + String.format("%.1f", report.perSecond()) + " msg/s)");
+        return report;
+    }
+
+    // Пустая строка - отправлять нечего: группы нет в расписании или завтра у неё нет пар
+    private String render(ScheduleSnapshot snapshot, String status, String name, LocalDate date, WeekDay day) {
+        boolean teacher = TelegramBot.TEACHER.equals(status);
+        if (!teacher && !TelegramBot.STUDENT.equals(status)) return "";
+
+        List<LessonVSU> lessons = teacher ? snapshot.getTeacherLessons(name, day) : snapshot.getLessons(name, day);
+        if (lessons.stream().allMatch(lesson -> lesson.getSubject().isEmpty())) return "";
+        if (!isScheduleFor(lessons, date)) {
+            log.warn("Broadcast skipped for " + name + ": schedule is not for " + date);
+            return "";
+        }
+
+        String schedule = teacher ? excelParser.getDaySubjectsTeacher(snapshot, day, name)
+                : excelParser.getDaySubjectsStudent(snapshot, day, name);
+        return "Расписание на завтра\n\n" + schedule;
+    }
+
+    // Файл могли не обновить, и в нём прошлая неделя - такое расписание за "завтра" не выдаём.
+    // Дату, которую не удалось прочитать, не проверяем
+    static boolean isScheduleFor(List<LessonVSU> lessons, LocalDate date) {
+        for (LessonVSU lesson : lessons) {
+            if (lesson.getDate() == null) continue;
+            Matcher matcher = LESSON_DATE.matcher(lesson.getDate());
+            if (matcher.matches()) {
+                return Integer.parseInt(matcher.group(1)) == date.getDayOfMonth()
+                        && Integer.parseInt(matcher.group(2)) == date.getMonthValue();
+            }
+        }
+        return true;
+    }
+
+    private Properties loadCursor() {
+        Properties properties = new Properties();
+        File file = new File(pathExcel + CURSOR_FILE);
+        if (!file.exists()) return properties;
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            log.error("Error reading " + CURSOR_FILE + ": " + e.getMessage());
+        }
+        return properties;
+    }
+
+    private void saveCursor(LocalDate date, String group, long id, boolean done) {
+        Properties properties = new Properties();
+        properties.setProperty("date", date.toString());
+        properties.setProperty("group", group);
+        properties.setProperty("id", String.valueOf(id));
+        properties.setProperty("done", String.valueOf(done));
+
+        File file = new File(pathExcel + CURSOR_FILE);
+        File temp = new File(pathExcel + CURSOR_FILE + ".part");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            properties.store(out, "Broadcast progress");
+        } catch (IOException e) {
+            log.error("Error writing " + CURSOR_FILE + ": " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Error writing " + CURSOR_FILE + ": " + e.getMessage());
+        }
+    }
+
+    public boolean isRunning() {return running.get();}
+
+    public Report getLastReport() {return lastReport;}
+}
@@ -1,6 +1,9 @@
 package sia.telegramvsu.service;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -8,14 +11,36 @@ import org.jsoup.select.Elements;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 
 @Slf4j
@@ -27,49 +52,300 @@ public class DownloadExcel {
     @Value("${path.website}")
     private List<String> siteUrls;
 
+    private static final String SOURCES_FILE = "sources.properties";
 
+    @Value("${download.threads:4}")
+    private int threads;
+    @Value("${download.per-host:2}")
+    private int perHostLimit;
+    @Value("${download.connect-timeout:10000}")
+    private int connectTimeout;
+    @Value("${download.read-timeout:30000}")
+    private int readTimeout;
+    @Value("${download.retries:3}")
+    private int retries;
+    @Value("${download.backoff:1000}")
+    private long backoffMillis;
 
-    private void downloadFile(String fileUrl, String outputFileName) {
-        try {
-            URL url = new URL(fileUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    private static final int TOO_MANY_REQUESTS = 429;
 
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0");
+    private final Map<String, Semaphore> hostLimits = new ConcurrentHashMap<>();
 
-            connection.setInstanceFollowRedirects(true);
+    // Что известно о файле по ссылке с прошлой загрузки: куда сохранён, заголовки кеширования и хеш
+    private record Source(String file, String etag, String lastModified, String sha256) {
+    }
 
-            try (InputStream in = connection.getInputStream();
-                 ReadableByteChannel rbc = Channels.newChannel(in);
-                 FileOutputStream fos = new FileOutputStream(outputFileName)) {
+    @FunctionalInterface
+    private interface Fetch<T> {
+        T get() throws IOException;
+    }
 
-                fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
+    // true, если содержимое файла изменилось
+    private boolean downloadFile(String fileUrl, String outputFileName, Map<String, Source> sources) throws IOException {
+        URL url = new URL(fileUrl);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        File output = new File(outputFileName);
+        Source previous = sources.get(fileUrl);
+        boolean known = previous != null && output.exists();
+
+        connection.setRequestProperty("User-Agent", "Mozilla/5.0");
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setInstanceFollowRedirects(true);
+        boolean conditional = false;
+        if (known && previous.etag() != null) {
+            connection.setRequestProperty("If-None-Match", previous.etag());
+            conditional = true;
+        }
+        if (known && previous.lastModified() != null) {
+            connection.setRequestProperty("If-Modified-Since", previous.lastModified());
+            conditional = true;
+        }
+
+        try {
+            int status = connection.getResponseCode();
+            // 304 без условного запроса - ответ без тела, сохранять его вместо расписания нельзя
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && conditional) {
+                return false;
+            }
+            if (status >= 300) {
+                throw new HttpStatusException("HTTP " + status, status, fileUrl);
             }
 
-        } catch (IOException e) {
-            log.error("Error downloading schedules");
+            // Пишем во временный файл, чтобы оборванная загрузка не испортила прошлую версию расписания
+            File temp = new File(output.getParentFile(), output.getName() + ".part");
+            MessageDigest digest = sha256();
+            try {
+                try (InputStream in = new DigestInputStream(connection.getInputStream(), digest);
+                     ReadableByteChannel rbc = Channels.newChannel(in);
+                     FileOutputStream fos = new FileOutputStream(temp)) {
+
+                    long written = fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
+                    // Обрыв соединения не всегда даёт исключение: сверяем размер с заявленным
+                    long expected = connection.getContentLengthLong();
+                    if (expected >= 0 && written != expected) {
+                        throw new IOException("Incomplete download " + written + " of " + expected + " bytes: " + fileUrl);
+                    }
+                }
+                String sha256 = HexFormat.of().formatHex(digest.digest());
+                sources.put(fileUrl, new Source(output.getName(), connection.getHeaderField("ETag"),
+                        connection.getHeaderField("Last-Modified"), sha256));
+
+                if (known && sha256.equals(previous.sha256())) {
+                    return false;
+                }
+                Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return true;
+            } finally {
+                // После переноса файла уже нет; после обрыва недокачанный файл не должен остаться в папке
+                Files.deleteIfExists(temp.toPath());
+            }
+        } finally {
+            connection.disconnect();
         }
     }
 
-    public void downloadSchedules() {
+    private List<String> findExcelLinks(String siteUrl) throws IOException {
         String filePattern = ".xlsx";
+        List<String> excelLinks = new ArrayList<>();
+
+        Document doc = Jsoup.connect(siteUrl)
+                .userAgent("Mozilla/5.0")
+                .timeout(connectTimeout + readTimeout)
+                .get();
+        Elements links = doc.select("a[href]");
+
+        for (Element link : links) {
+            String href = link.attr("href");
+            if (href.contains(filePattern)) {
+                excelLinks.add(link.absUrl("href"));
+            }
+        }
+        return excelLinks;
+    }
+
+    // true, если хотя бы один файл расписания изменился и его нужно разобрать заново
+    public boolean downloadSchedules() {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        Map<String, Source> sources = loadSources();
+        boolean changed = false;
+
         try {
-            int i = 1;
+            List<Future<List<String>>> pages = new ArrayList<>();
             for (String siteUrl : siteUrls) {
-                Document doc = Jsoup.connect(siteUrl).get();
-                Elements links = doc.select("a[href]");
-
-                for (Element link : links) {
-                    String href = link.attr("href");
-                    if (href.contains(filePattern)) {
-                        // Скачать файл по найденной ссылке
-                        downloadFile("https://vsu.by" + href, pathExcel + i + ".xlsx");
-                        log.info("Excel file downloaded successful");
-                        i++;
+                pages.add(executor.submit(() -> withRetries(siteUrl, () -> findExcelLinks(siteUrl))));
+            }
+
+            Set<String> fileUrls = new LinkedHashSet<>();
+            boolean allPagesLoaded = true;
+            for (int page = 0; page < pages.size(); page++) {
+                try {
+                    fileUrls.addAll(pages.get(page).get());
+                } catch (ExecutionException e) {
+                    allPagesLoaded = false;
+                    log.error("Excel links not found on " + siteUrls.get(page) + ": " + e.getCause().getMessage());
+                }
+            }
+
+            // Ссылка сохраняет свой номер файла между загрузками, новые ссылки получают свободные номера
+            Set<String> usedFiles = new HashSet<>();
+            sources.values().forEach(source -> usedFiles.add(source.file()));
+
+            List<Future<Boolean>> downloads = new ArrayList<>();
+            int i = 1;
+            for (String fileUrl : fileUrls) {
+                Source source = sources.get(fileUrl);
+                String fileName;
+                if (source != null) {
+                    fileName = source.file();
+                } else {
+                    while (usedFiles.contains(i + ".xlsx")) i++;
+                    fileName = i + ".xlsx";
+                    usedFiles.add(fileName);
+                }
+                String outputFileName = pathExcel + fileName;
+
+                downloads.add(executor.submit(() -> {
+                    long fileStart = System.nanoTime();
+                    String result = "error";
+                    try {
+                        boolean fileChanged = withRetries(fileUrl, () -> downloadFile(fileUrl, outputFileName, sources));
+                        result = fileChanged ? "changed" : "unchanged";
+                        long millis = (System.nanoTime() - fileStart) / 1_000_000;
+                        log.info((fileChanged ? "Excel file downloaded successful: " : "Excel file not changed: ")
+                                + fileUrl + " in " + millis + " ms");
+                        return fileChanged;
+                    } finally {
+                        // Источник - файл, под которым ссылка сохраняется между загрузками
+                        Timer.builder("schedule.download")
+                                .tag("source", fileName)
+                                .tag("result", result)
+                                .register(Metrics.globalRegistry)
+                                .record(System.nanoTime() - fileStart, TimeUnit.NANOSECONDS);
                     }
+                }));
+            }
+
+            int downloaded = 0;
+            for (Future<Boolean> download : downloads) {
+                try {
+                    if (download.get()) {
+                        changed = true;
+                        downloaded++;
+                    }
+                } catch (ExecutionException e) {
+                    log.error("Excel file no downloaded: " + e.getCause().getMessage());
                 }
             }
+
+            // Удаляем только то, что скачали сами, и только если все страницы факультетов ответили
+            if (allPagesLoaded) {
+                changed |= removeStaleFiles(sources, fileUrls);
+            }
+            saveSources(sources);
+
+            log.info("Downloaded " + downloaded + " changed of " + fileUrls.size() + " excel files in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Excel download interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+        return changed;
+    }
+
+    private boolean removeStaleFiles(Map<String, Source> sources, Set<String> fileUrls) {
+        boolean removed = false;
+        for (var iterator = sources.entrySet().iterator(); iterator.hasNext(); ) {
+            var entry = iterator.next();
+            if (fileUrls.contains(entry.getKey())) continue;
+
+            File stale = new File(pathExcel + entry.getValue().file());
+            if (stale.delete()) {
+                log.info("Excel file removed: " + entry.getKey());
+                removed = true;
+            }
+            iterator.remove();
+        }
+        return removed;
+    }
+
+    private Map<String, Source> loadSources() {
+        Map<String, Source> sources = new ConcurrentHashMap<>();
+        File file = new File(pathExcel + SOURCES_FILE);
+        if (!file.exists()) return sources;
+
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            log.error("Error reading " + SOURCES_FILE + ": " + e.getMessage());
+            return sources;
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.endsWith(".file")) continue;
+            String url = key.substring(0, key.length() - ".file".length());
+            sources.put(url, new Source(properties.getProperty(key), properties.getProperty(url + ".etag"),
+                    properties.getProperty(url + ".last-modified"), properties.getProperty(url + ".sha256")));
+        }
+        return sources;
+    }
+
+    private void saveSources(Map<String, Source> sources) {
+        Properties properties = new Properties();
+        sources.forEach((url, source) -> {
+            properties.setProperty(url + ".file", source.file());
+            if (source.etag() != null) properties.setProperty(url + ".etag", source.etag());
+            if (source.lastModified() != null) properties.setProperty(url + ".last-modified", source.lastModified());
+            if (source.sha256() != null) properties.setProperty(url + ".sha256", source.sha256());
+        });
+
+        File file = new File(pathExcel + SOURCES_FILE);
+        File temp = new File(pathExcel + SOURCES_FILE + ".part");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            properties.store(out, "Schedule sources");
         } catch (IOException e) {
-            log.error("Excel file no downloaded");
+            log.error("Error writing " + SOURCES_FILE + ": " + e.getMessage());
+            return;
         }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Error writing " + SOURCES_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T withRetries(String url, Fetch<T> fetch) throws IOException, InterruptedException {
+        Semaphore hostLimit = hostLimits.computeIfAbsent(new URL(url).getHost(), host -> new Semaphore(Math.max(1, perHostLimit)));
+
+        for (int attempt = 0; ; attempt++) {
+            hostLimit.acquire();
+            try {
+                return fetch.get();
+            } catch (IOException e) {
+                if (attempt >= retries || !isRetryable(e)) throw e;
+                log.warn("Retry " + (attempt + 1) + " for " + url + ": " + e.getMessage());
+            } finally {
+                hostLimit.release();
+            }
+            Thread.sleep(backoffMillis << attempt);
+        }
+    }
+
+    // Повтор поможет при сбое сети, ошибке сервера и 429; остальные ответы повтор не исправит
+    private static boolean isRetryable(IOException e) {
+        if (!(e instanceof HttpStatusException http)) return true;
+        return http.getStatusCode() >= 500 || http.getStatusCode() == TOO_MANY_REQUESTS;
     }
 }
@@ -1,241 +1,486 @@
 package sia.telegramvsu.service;
 
-import lombok.Data;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import sia.telegramvsu.model.LessonVSU;
 import sia.telegramvsu.model.NumberLesson;
+import sia.telegramvsu.model.ScheduleSnapshot;
 import sia.telegramvsu.model.WeekDay;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static sia.telegramvsu.service.ApachePoi.parseExcelWithMergedCells;
+import static sia.telegramvsu.service.ApachePoi.streamExcelWithMergedCells;
 
 @Slf4j
-@Data
 @Component
 public class ExcelParser {
 
+    // Сеттеры настроек - для тестов и бенчмарков, которые создают разборщик без Spring
+    @Setter
     @Value("${path.excel}")
     private String filePath;
 
     final int ROWS_BETWEEN_LESSONS = 3;
     final int TIME_COLUMN_NUMBER = 2;
     final int GROUPS_ROW_NUMBER = 13;
+    final int FIRST_LESSON_ROW = 15;
+
+    private static final int SUGGESTIONS = 3;
+    private static final String WEEK_SEPARATOR = "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n";
+
+    // Время разбора всей папки и ответа на каждый вид запроса
+    private static final Timer PARSE_TIMER = Timer.builder("schedule.parse").register(Metrics.globalRegistry);
+    private static final Timer DAY_STUDENT_TIMER = queryTimer("daySubjectsStudent");
+    private static final Timer WEEK_STUDENT_TIMER = queryTimer("weekSubjectsStudent");
+    private static final Timer DAY_TEACHER_TIMER = queryTimer("daySubjectsTeacher");
+    private static final Timer WEEK_TEACHER_TIMER = queryTimer("weekSubjectsTeacher");
+    private static final Timer FREE_AUDITORIUMS_TIMER = queryTimer("freeAuditoriums");
+    private static final Timer FIND_GROUP_TIMER = queryTimer("findGroup");
+    private static final Timer FIND_TEACHER_TIMER = queryTimer("findTeacher");
+    private static final Timer SUGGEST_GROUPS_TIMER = queryTimer("suggestGroups");
+    private static final Timer SUGGEST_TEACHERS_TIMER = queryTimer("suggestTeachers");
+
+    @Setter
+    @Value("${parser.streaming:true}")
+    private boolean streaming;
+
+    @Setter
+    @Value("${parser.parallel:true}")
+    private boolean parallel;
+
+    @Setter
+    @Value("${parser.threads:0}")
+    private int parserThreads;
+
+    @Setter
+    @Value("${snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${snapshot.file:schedule.snapshot}")
+    private String snapshotFileName;
+
+    @Value("${snapshot.mmap:false}")
+    private boolean snapshotMmap;
+
+    // Публикуется одной записью: читатели видят либо старый срез целиком, либо новый
+    @Getter
+    private volatile ScheduleSnapshot snapshot = ScheduleSnapshot.EMPTY;
+    private final AtomicLong versions = new AtomicLong();
+    private final ScheduleRenderCache renderCache = new ScheduleRenderCache(10_000);
+
+    // Разобранные группы каждого файла; файл разбирается заново, только если изменились его дата или размер
+    @Getter(AccessLevel.PACKAGE)
+    private Map<String, Segment> segments = new LinkedHashMap<>();
+
+    record Segment(long lastModified, long length, Map<String, Map<WeekDay, List<LessonVSU>>> groups) {
+
+        boolean isActual(File file) {
+            return lastModified == file.lastModified() && length == file.length();
+        }
+    }
 
-    private Set<String> auditoriums;
-    private Map<String, Map<WeekDay,List<LessonVSU>>> schedule;
+    public synchronized void parseExel() {
+        Timer.Sample sample = Timer.start();
+        try {
+            parseFiles();
+        } finally {
+            sample.stop(PARSE_TIMER);
+        }
+    }
 
-    public void parseExel() throws IOException {
-        Workbook workbook;
-        FileInputStream fis;
-        Map<String, Map<WeekDay,List<LessonVSU>>> schedule = new HashMap<>();
+    private void parseFiles() {
+        File folder = new File(filePath);
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(".xlsx"));
+        if (files == null) {
+            log.error("Error parse exel: folder " + filePath + " not found");
+            return;
+        }
 
+        List<File> changedFiles = Arrays.stream(files)
+                .filter(file -> segments.get(file.getName()) == null || !segments.get(file.getName()).isActual(file))
+                .toList();
+        boolean removedFiles = segments.keySet().stream()
+                .anyMatch(name -> Arrays.stream(files).noneMatch(file -> file.getName().equals(name)));
 
-        try {
-            File folder = new File(filePath);
-            File[] files = folder.listFiles();
-            for (var file : files) {
+        if (changedFiles.isEmpty() && !removedFiles && !snapshot.isEmpty()) {
+            log.info("Excel files not changed");
+            return;
+        }
+
+        List<Segment> parsedFiles = parallel && changedFiles.size() > 1
+                ? parseFilesParallel(changedFiles)
+                : changedFiles.stream().map(this::parseFileSafely).toList();
+
+        Map<String, Segment> parsedByName = new HashMap<>();
+        for (int i = 0; i < changedFiles.size(); i++) {
+            if (parsedFiles.get(i) != null) {
+                parsedByName.put(changedFiles.get(i).getName(), parsedFiles.get(i));
+            }
+        }
 
-                if (file.getName().contains(".xlsx")) {
+        // Неизменённые файлы переиспользуются как есть; если файл не разобрался, остаётся его прошлая версия
+        Map<String, Segment> segments = new LinkedHashMap<>();
+        for (File file : files) {
+            Segment segment = parsedByName.getOrDefault(file.getName(), this.segments.get(file.getName()));
+            if (segment != null) {
+                segments.put(file.getName(), segment);
+            }
+        }
 
-                    WeekDay dayNow = null;
-                    List<List<String>> list = parseExcelWithMergedCells(file);
+        // Ни один файл не разобрался и ни один не пропал - расписание прежнее, новая версия не нужна
+        if (parsedByName.isEmpty() && segments.keySet().equals(this.segments.keySet())) {
+            log.warn("Excel files not parsed, schedule version " + this.snapshot.getVersion() + " kept");
+            return;
+        }
 
+        ScheduleSnapshot snapshot = publish(segments, new ScheduleSnapshot(versions.incrementAndGet(), merge(segments)));
+        log.info("Excel file parsed successfully: " + parsedByName.size() + " of " + files.length
+                + " files reparsed, schedule version " + snapshot.getVersion());
+        saveSnapshotFile();
+    }
 
+    // Порядок слияния совпадает с порядком файлов, как и при последовательном разборе
+    private static Map<String, Map<WeekDay, List<LessonVSU>>> merge(Map<String, Segment> segments) {
+        Map<String, Map<WeekDay,List<LessonVSU>>> schedule = new HashMap<>();
+        segments.values().forEach(segment -> schedule.putAll(segment.groups()));
+        return schedule;
+    }
 
-                    for (int indexGroup = 3; indexGroup < list.get(GROUPS_ROW_NUMBER).size(); indexGroup++) {
-                        Map<WeekDay,List<LessonVSU>> dayLessonVSUMap = new HashMap<>();
+    private ScheduleSnapshot publish(Map<String, Segment> segments, ScheduleSnapshot snapshot) {
+        this.segments = segments;
+        this.snapshot = snapshot;
+        renderCache.invalidate(snapshot.getVersion());
+        return snapshot;
+    }
 
-                        for (int i = 15; i < list.size()-4; i+=ROWS_BETWEEN_LESSONS) {
-                            while (list.get(i).get(0).isEmpty()) {
-                                if (i < list.size()-4) i++;
-                                else break;
-                            }
-                            final int finalI = i;
+    // Срез с прошлого запуска: отвечать можно сразу, а свежие файлы разобрать потом.
+    // Отпечатки файлов сохраняются вместе с группами, поэтому неизменённые файлы не разбираются заново
+    public synchronized boolean loadSnapshotFile() {
+        if (!snapshotEnabled) return false;
+        File file = new File(filePath, snapshotFileName);
+        if (!file.exists()) return false;
 
-                            var dayNowOptional = Arrays.stream(WeekDay.values())
-                                    .filter(weekDay -> weekDay.dayString.equals(list.get(finalI).get(0)))
-                                    .findFirst();
+        long start = System.nanoTime();
+        try {
+            SnapshotFile.Contents contents = SnapshotFile.read(file, snapshotMmap);
+            versions.accumulateAndGet(contents.version(), Math::max);
+            ScheduleSnapshot snapshot = publish(contents.segments(), new ScheduleSnapshot(versions.get(),
+                    Instant.ofEpochMilli(contents.createdAt()), merge(contents.segments())));
+            log.info("Schedule snapshot loaded: " + snapshot.getSchedule().size() + " groups, version "
+                    + snapshot.getVersion() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Error loading schedule snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void saveSnapshotFile() {
+        if (!snapshotEnabled) return;
+        ScheduleSnapshot snapshot = this.snapshot;
+        try {
+            SnapshotFile.write(new File(filePath, snapshotFileName), snapshot.getVersion(),
+                    snapshot.getCreatedAt().toEpochMilli(), segments);
+        } catch (IOException e) {
+            log.error("Error saving schedule snapshot: " + e.getMessage());
+        }
+    }
 
-                            if (dayNowOptional.isPresent()) {
-                                dayNow = dayNowOptional.get();
-                            } else continue;
+    @Value("${parser.render-cache-size:10000}")
+    public void setRenderCacheSize(int renderCacheSize) {
+        renderCache.setMaxSize(renderCacheSize);
+    }
 
+    // Сколько ответов сейчас в кеше
+    public int getRenderCacheSize() {
+        return renderCache.size();
+    }
 
-                            LessonVSU lesson = new LessonVSU();
-                            lesson.setNumber(list.get(i).get(TIME_COLUMN_NUMBER));
-                            lesson.setTime(list.get(i + 1).get(TIME_COLUMN_NUMBER));
+    private static Timer queryTimer(String method) {
+        return Timer.builder("schedule.query").tag("method", method).register(Metrics.globalRegistry);
+    }
 
-                            lesson.setSubject(list.get(i).get(indexGroup));
-                            lesson.setLector(list.get(i + 1).get(indexGroup));
-                            lesson.setAuditorium(list.get(i + 2).get(indexGroup));
-                            lesson.setDate(list.get(i).get(1));
+    public Map<String, Map<WeekDay, List<LessonVSU>>> getSchedule() {
+        return snapshot.getSchedule();
+    }
 
-                            if (!dayLessonVSUMap.containsKey(dayNow)) {
-                                dayLessonVSUMap.put(dayNow, new ArrayList<>());
-                            }
+    public Set<String> getAuditoriums() {
+        return snapshot.getAuditoriums();
+    }
 
-                            dayLessonVSUMap.get(dayNow).add(lesson);
-                        }
+    private List<Segment> parseFilesParallel(List<File> files) {
+        int threads = Math.min(files.size(), parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors());
+        ForkJoinPool pool = new ForkJoinPool(threads);
 
-                        schedule.put(list.get(GROUPS_ROW_NUMBER).get(indexGroup).trim(), dayLessonVSUMap);
-                    }
+        try {
+            List<Callable<Segment>> tasks = files.stream()
+                    .<Callable<Segment>>map(file -> () -> parseFileSafely(file))
+                    .toList();
 
-                }
+            List<Segment> parsedFiles = new ArrayList<>();
+            for (Future<Segment> future : pool.invokeAll(tasks)) {
+                parsedFiles.add(future.get());
             }
-            this.schedule=schedule;
-            log.info("Excel file parsed successfully");
-        }catch (IOException e){
-            log.error("Error parse exel" + e.getMessage());
+            return parsedFiles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parsing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error parse exel" + e.getMessage(), e);
+        } finally {
+            pool.shutdown();
         }
-
-        auditoriums = getAllAuditorium();
     }
 
-    public String getDaySubjectsStudent(WeekDay weekDay, String groupName) {
-        return formatLessons(schedule.get(groupName).get(weekDay), weekDay);
+    // Битый файл теряет только свои группы, остальные файлы разбираются как обычно
+    private Segment parseFileSafely(File file) {
+        // дата и размер берутся до чтения, чтобы подменённый во время разбора файл разобрался ещё раз
+        long lastModified = file.lastModified();
+        long length = file.length();
+        try {
+            return new Segment(lastModified, length, parseFile(file));
+        } catch (IOException | RuntimeException e) {
+            log.error("Error parse exel " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
     }
 
-    public String getWeekSubjectsStudent(String groupName) {
-        StringBuilder sb = new StringBuilder();
-            sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-        for (WeekDay weekDay : WeekDay.values()) {
-            sb.append(getDaySubjectsStudent(weekDay, groupName))
-            .append("\n━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-        }
+    private Map<String, Map<WeekDay, List<LessonVSU>>> parseFile(File file) throws IOException {
+        SheetCollector collector = new SheetCollector();
 
-        sb.append(schedule.get(groupName).get(WeekDay.MONDAY).get(0).getDate())
-                .append(" - ")
-                .append(schedule.get(groupName).get(WeekDay.SATURDAY).get(0).getDate());
+        if (streaming) {
+            streamExcelWithMergedCells(file, collector);
+        } else {
+            List<List<String>> list = parseExcelWithMergedCells(file);
+            collector.sheetSize(list.size(), list.isEmpty() ? 0 : list.get(0).size());
+            for (int rowNum = 0; rowNum < list.size(); rowNum++) {
+                collector.row(rowNum, list.get(rowNum));
+            }
+        }
 
-        return sb.toString();
+        return collector.getGroups();
     }
 
-    public List<String> getFreeAuditoriums(WeekDay weekDay, NumberLesson numberLesson) {
-
-        Set<String> auditoriumsBusy = new HashSet<>();
+    // Разбирает лист построчно: держит строку групп и окно из трёх строк текущего занятия
+    private class SheetCollector implements ApachePoi.SheetRowHandler {
+        private final List<List<String>> window = new ArrayList<>();
+        private final List<Map<WeekDay, List<LessonVSU>>> groupLessons = new ArrayList<>();
+        private List<String> groups;
+        private int windowStart = FIRST_LESSON_ROW;
+        private int lastLessonRow;
+        private int i = FIRST_LESSON_ROW;
+        private boolean skipping;
+        private boolean done;
+
+        @Override
+        public void sheetSize(int rowCount, int columnCount) {
+            lastLessonRow = rowCount - 4;
+        }
 
-        for (Map.Entry<String, Map<WeekDay, List<LessonVSU>>> groupEntry : schedule.entrySet()) {
-            Map<WeekDay, List<LessonVSU>> daySchedule = groupEntry.getValue();
-            for (Map.Entry<WeekDay, List<LessonVSU>> dayEntry : daySchedule.entrySet()) {
-                List<LessonVSU> lessons = dayEntry.getValue();
-                for (LessonVSU lesson : lessons) {
-                    if (lesson.getNumber().equalsIgnoreCase(numberLesson.getNumber())) {
-                        auditoriumsBusy.add(lesson.getAuditorium());
-                    }
+        @Override
+        public void row(int rowNum, List<String> cells) {
+            if (rowNum == GROUPS_ROW_NUMBER) {
+                groups = cells;
+                for (int indexGroup = 3; indexGroup < groups.size(); indexGroup++) {
+                    groupLessons.add(new EnumMap<>(WeekDay.class));
                 }
             }
-        }
-        Set<String> auditoriumsAll = new HashSet<>(auditoriums);
-        auditoriumsAll.removeAll(auditoriumsBusy);
+            if (rowNum < FIRST_LESSON_ROW || done) return;
 
-        List<String> list = auditoriumsAll.stream().filter(auditorium -> auditorium.length() < 12)
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+            window.add(cells);
+            collect();
+        }
 
-        list.sort(String::compareTo);
+        private void collect() {
+            while (true) {
+                if (!skipping) {
+                    if (i >= lastLessonRow) {
+                        done = true;
+                        window.clear();
+                        return;
+                    }
+                    skipping = true;
+                }
 
-        return list;
-    }
+                if (!isLoaded(i)) return;
+                if (get(i).get(0).isEmpty() && i < lastLessonRow) {
+                    i++;
+                    dropPassedRows();
+                    continue;
+                }
 
-    public Set<String> getAllAuditorium() {
-        Set<String> auditoriums = new HashSet<>();
-        Set<String> groups = schedule.keySet();
+                if (!isLoaded(i + 2)) return;
+                skipping = false;
 
-        for (WeekDay weekDay : WeekDay.values()) {
-            for (String group : groups) {
-                List<LessonVSU> dayLessons = schedule.get(group).get(weekDay);
-                if (dayLessons == null) continue;
-                for (LessonVSU lesson : dayLessons) {
-                    auditoriums.add(lesson.getAuditorium());
+                WeekDay dayNow = weekDayOf(get(i).get(0));
+                if (dayNow != null && groups != null) {
+                    addLessons(dayNow);
                 }
+                i += ROWS_BETWEEN_LESSONS;
+                dropPassedRows();
             }
         }
 
-        return auditoriums;
-    }
+        private void dropPassedRows() {
+            while (windowStart < i && !window.isEmpty()) {
+                window.remove(0);
+                windowStart++;
+            }
+        }
 
-    public String getDaySubjectsTeacher(WeekDay weekDay, String nameTeacher) {
-        List<LessonVSU> lessons = new ArrayList<>();
-        Set<String> groups = schedule.keySet();
-
-        for (String group : groups) {
-            List<LessonVSU> dayLessons = schedule.get(group).get(weekDay);
-            if (dayLessons == null) continue;
-            for (LessonVSU lesson : dayLessons) {
-                if (lesson.getLector().equals(nameTeacher)) {
-                    if (!lessons.isEmpty() && lessons.get(lessons.size() -1).getNumber().equals(lesson.getNumber())) {
-                        lessons.get(lessons.size() -1).setLector(lessons.get(lessons.size() -1).getLector() + ", " + group);
-                    }else {
-                        LessonVSU cloneLesson = lesson.clone();
-                        cloneLesson.setLector(group);
-                        lessons.add(cloneLesson);
-                    }
+        private void addLessons(WeekDay dayNow) {
+            List<String> first = get(i);
+            List<String> second = get(i + 1);
+            List<String> third = get(i + 2);
 
+            for (int indexGroup = 3; indexGroup < groups.size(); indexGroup++) {
+                LessonVSU lesson = new LessonVSU();
+                lesson.setNumber(first.get(TIME_COLUMN_NUMBER));
+                lesson.setTime(second.get(TIME_COLUMN_NUMBER));
 
-                }
+                lesson.setSubject(first.get(indexGroup));
+                lesson.setLector(second.get(indexGroup));
+                lesson.setAuditorium(third.get(indexGroup));
+                lesson.setDate(first.get(1));
+
+                groupLessons.get(indexGroup - 3).computeIfAbsent(dayNow, day -> new ArrayList<>()).add(lesson);
             }
         }
 
-        Collections.sort(lessons, new Comparator<LessonVSU>() {
-            @Override
-            public int compare(LessonVSU o1, LessonVSU o2) {
-                return o1.getNumber().compareTo(o2.getNumber());
+        private boolean isLoaded(int rowNum) {
+            return rowNum < windowStart + window.size();
+        }
+
+        private List<String> get(int rowNum) {
+            return window.get(rowNum - windowStart);
+        }
+
+        Map<String, Map<WeekDay, List<LessonVSU>>> getGroups() {
+            Map<String, Map<WeekDay, List<LessonVSU>>> result = new HashMap<>();
+            for (int indexGroup = 3; groups != null && indexGroup < groups.size(); indexGroup++) {
+                Map<WeekDay, List<LessonVSU>> dayLessons = groupLessons.get(indexGroup - 3);
+                dayLessons.replaceAll((day, lessons) -> Collections.unmodifiableList(lessons));
+                result.put(groups.get(indexGroup).trim(), Collections.unmodifiableMap(dayLessons));
             }
-        });
+            return result;
+        }
+    }
 
-        return formatLessons(lessons, weekDay);
+    private static WeekDay weekDayOf(String dayString) {
+        for (WeekDay weekDay : WeekDay.values()) {
+            if (weekDay.dayString.equals(dayString)) return weekDay;
+        }
+        return null;
     }
 
-    public String getWeekSubjectsTeacher(String nameTeacher) {
+    public String getDaySubjectsStudent(WeekDay weekDay, String groupName) {
+        return getDaySubjectsStudent(snapshot, weekDay, groupName);
+    }
+
+    // По заранее взятому срезу: рассылка отвечает всем по одной версии, даже если расписание обновилось посреди неё
+    public String getDaySubjectsStudent(ScheduleSnapshot snapshot, WeekDay weekDay, String groupName) {
+        return DAY_STUDENT_TIMER.record(() -> renderCache.get(snapshot.getVersion(), ScheduleRenderCache.Kind.STUDENT, groupName, weekDay,
+                () -> formatLessons(snapshot.getLessons(groupName, weekDay), weekDay)));
+    }
+
+    public String getWeekSubjectsStudent(String groupName) {
+        ScheduleSnapshot snapshot = this.snapshot;
+        return WEEK_STUDENT_TIMER.record(() -> renderCache.get(snapshot.getVersion(), ScheduleRenderCache.Kind.STUDENT, groupName, null,
+                () -> formatWeekStudent(snapshot, groupName)));
+    }
+
+    private String formatWeekStudent(ScheduleSnapshot snapshot, String groupName) {
         StringBuilder sb = new StringBuilder();
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+            sb.append(WEEK_SEPARATOR);
         for (WeekDay weekDay : WeekDay.values()) {
-            sb.append(getDaySubjectsTeacher(weekDay, nameTeacher))
-                    .append("\n━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+            appendLessons(sb, snapshot.getLessons(groupName, weekDay), weekDay);
+            sb.append('\n').append(WEEK_SEPARATOR);
         }
+
+        List<LessonVSU> monday = snapshot.getLessons(groupName, WeekDay.MONDAY);
+        List<LessonVSU> saturday = snapshot.getLessons(groupName, WeekDay.SATURDAY);
+        if (!monday.isEmpty() && !saturday.isEmpty()) {
+            sb.append(monday.get(0).getDate())
+                    .append(" - ")
+                    .append(saturday.get(0).getDate());
+        }
+
         return sb.toString();
     }
 
+    public List<String> getFreeAuditoriums(WeekDay weekDay, NumberLesson numberLesson) {
+        return FREE_AUDITORIUMS_TIMER.record(() -> snapshot.getFreeAuditoriums(weekDay, numberLesson));
+    }
+
+    public String getDaySubjectsTeacher(WeekDay weekDay, String nameTeacher) {
+        return getDaySubjectsTeacher(snapshot, weekDay, nameTeacher);
+    }
+
+    public String getDaySubjectsTeacher(ScheduleSnapshot snapshot, WeekDay weekDay, String nameTeacher) {
+        return DAY_TEACHER_TIMER.record(() -> renderCache.get(snapshot.getVersion(), ScheduleRenderCache.Kind.TEACHER, nameTeacher, weekDay,
+                () -> formatLessons(snapshot.getTeacherLessons(nameTeacher, weekDay), weekDay)));
+    }
+
+    public String getWeekSubjectsTeacher(String nameTeacher) {
+        ScheduleSnapshot snapshot = this.snapshot;
+        return WEEK_TEACHER_TIMER.record(() -> renderCache.get(snapshot.getVersion(), ScheduleRenderCache.Kind.TEACHER, nameTeacher, null, () -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append(WEEK_SEPARATOR);
+            for (WeekDay weekDay : WeekDay.values()) {
+                appendLessons(sb, snapshot.getTeacherLessons(nameTeacher, weekDay), weekDay);
+                sb.append('\n').append(WEEK_SEPARATOR);
+            }
+            return sb.toString();
+        }));
+    }
+
     private String formatLessons(List<LessonVSU> lessons, WeekDay weekDay) {
-       StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(64 + lessons.size() * 96);
+        appendLessons(sb, lessons, weekDay);
+        return sb.toString();
+    }
 
-        sb.append("""
-                <u><b>%s:</b></u>
-                
-                """.formatted(weekDay.dayString));
+    // Тот же HTML, что давал String.formatted, но без разбора шаблона на каждый запрос
+    private static void appendLessons(StringBuilder sb, List<LessonVSU> lessons, WeekDay weekDay) {
+        sb.append("<u><b>").append(weekDay.dayString).append(":</b></u>\n\n");
         for (LessonVSU lesson : lessons) {
             if (!lesson.getSubject().isEmpty()) {
-                sb.append("""
-                        <b>№%s</b> %s
-                          <b>%s</b>
-                          %s
-                          %s
-                        
-                        """.formatted(lesson.getNumber(), lesson.getTime(), lesson.getSubject(), lesson.getLector(), lesson.getAuditorium()));
+                sb.append("<b>№").append(lesson.getNumber()).append("</b> ").append(lesson.getTime()).append('\n')
+                        .append("  <b>").append(lesson.getSubject()).append("</b>\n")
+                        .append("  ").append(lesson.getLector()).append('\n')
+                        .append("  ").append(lesson.getAuditorium()).append("\n\n");
             }
         }
-        return sb.toString();
     }
 
     public String getGroupHowInSchedule(String group) {
-        var groupOptional = schedule.keySet().stream().filter((groupStream) -> groupStream.equalsIgnoreCase(group)).findFirst();
-
-        return groupOptional.orElse(null);
+        return FIND_GROUP_TIMER.record(() -> snapshot.getGroupNames().find(group));
     }
 
     public String getTeacherHowInSchedule(String lector) {
-        Optional<LessonVSU> lessonOptional = schedule.values().stream()
-                .flatMap(dayLessons -> dayLessons.values().stream()) //Map<String, Map<WeekDay,List<LessonVSU>>>
-                .flatMap(lessons -> lessons.stream())
-                .filter(lessonVSU -> lessonVSU.getLector().trim().equals(lector))
-                .findFirst();
+        return FIND_TEACHER_TIMER.record(() -> snapshot.getTeacherNames().find(lector));
+    }
+
+    public List<String> suggestGroups(String group) {
+        return SUGGEST_GROUPS_TIMER.record(() -> snapshot.getGroupNames().suggest(group, SUGGESTIONS));
+    }
 
-        return lessonOptional.map(LessonVSU::getLector).orElse(null);
+    public List<String> suggestTeachers(String lector) {
+        return SUGGEST_TEACHERS_TIMER.record(() -> snapshot.getTeacherNames().suggest(lector, SUGGESTIONS));
     }
-}
\ No newline at end of file
+}
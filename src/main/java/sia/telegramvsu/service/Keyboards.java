@@ -0,0 +1,82 @@
+package sia.telegramvsu.service;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import sia.telegramvsu.model.NumberLesson;
+import sia.telegramvsu.model.WeekDay;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Клавиатуры собираются один раз при старте и отдаются всем сообщениям; менять их после сборки нельзя
+public final class Keyboards {
+
+    public static final InlineKeyboardMarkup STATUS = markup(List.of(
+            List.of(button("Преподаватель", "TEACHER_BUTTON"), button("Студент", "STUDENT_BUTTON"))));
+
+    public static final InlineKeyboardMarkup DAY_WEEK = markup(withRow(dayRows(""),
+            List.of(button("Вся неделя", "ALL_BUTTON"))));
+
+    public static final InlineKeyboardMarkup DAY_WEEK_FOR_LESSON = markup(dayRows("_LESSON"));
+
+    public static final InlineKeyboardMarkup CHANGE_DAY = markup(List.of(
+            List.of(button("Выбрать другой день", "CHANGE_DAY"))));
+
+    private static final Map<WeekDay, InlineKeyboardMarkup> LESSON_NUMBERS = new EnumMap<>(WeekDay.class);
+
+    static {
+        for (WeekDay day : WeekDay.values()) {
+            List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+            NumberLesson[] numbers = NumberLesson.values();
+            for (int i = 0; i < numbers.length; i += 2) {
+                rows.add(List.of(lessonButton(numbers[i], day), lessonButton(numbers[i + 1], day)));
+            }
+            LESSON_NUMBERS.put(day, markup(rows));
+        }
+    }
+
+    private Keyboards() {
+    }
+
+    public static InlineKeyboardMarkup lessonNumbers(WeekDay day) {
+        return LESSON_NUMBERS.get(day);
+    }
+
+    private static List<List<InlineKeyboardButton>> dayRows(String callbackSuffix) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        WeekDay[] days = WeekDay.values();
+        for (int i = 0; i < days.length; i += 2) {
+            rows.add(List.of(dayButton(days[i], callbackSuffix), dayButton(days[i + 1], callbackSuffix)));
+        }
+        return rows;
+    }
+
+    private static List<List<InlineKeyboardButton>> withRow(List<List<InlineKeyboardButton>> rows, List<InlineKeyboardButton> row) {
+        rows.add(row);
+        return rows;
+    }
+
+    private static InlineKeyboardButton dayButton(WeekDay day, String callbackSuffix) {
+        return button(day.dayString, day.name() + "_BUTTON" + callbackSuffix);
+    }
+
+    // "LESSON_3:FRIDAY" - номер пары вместе с выбранным днём
+    private static InlineKeyboardButton lessonButton(NumberLesson number, WeekDay day) {
+        return button(number.getNumber().substring(1), number.name() + ":" + day.name());
+    }
+
+    private static InlineKeyboardButton button(String text, String callbackData) {
+        InlineKeyboardButton button = new InlineKeyboardButton();
+        button.setText(text);
+        button.setCallbackData(callbackData);
+        return button;
+    }
+
+    private static InlineKeyboardMarkup markup(List<List<InlineKeyboardButton>> rows) {
+        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
+        markup.setKeyboard(List.copyOf(rows));
+        return markup;
+    }
+}
@@ -0,0 +1,118 @@
+package sia.telegramvsu.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sia.telegramvsu.model.ScheduleSnapshot;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка расписания не держит запуск приложения: пока его нет, бот отвечает, что расписание загружается,
+// а ScheduleHealthIndicator не пускает трафик через группу readiness
+@Slf4j
+@Service
+public class ScheduleBootstrap {
+
+    // LOADING - расписания ещё нет; READY - последнее обновление удалось; STALE - отвечаем по старому срезу
+    public enum State {LOADING, READY, STALE}
+
+    private final DownloadExcel downloadExcel;
+    private final ExcelParser excelParser;
+    private final ScheduleChangeNotifier scheduleChangeNotifier;
+
+    @Value("${bootstrap.retry-delay:60000}")
+    private long retryDelayMillis;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "schedule-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile State state = State.LOADING;
+    // Запланированный повтор; трогается только из потока загрузки
+    private ScheduledFuture<?> retry;
+
+    public ScheduleBootstrap(DownloadExcel downloadExcel, ExcelParser excelParser, ScheduleChangeNotifier scheduleChangeNotifier) {
+        this.downloadExcel = downloadExcel;
+        this.excelParser = excelParser;
+        this.scheduleChangeNotifier = scheduleChangeNotifier;
+    }
+
+    // Срез с диска читается за миллисекунды, поэтому сразу; сайты и POI - в фоне
+    @PostConstruct
+    public void start() {
+        if (excelParser.loadSnapshotFile()) {
+            state = State.STALE;
+        }
+        executor.execute(this::bootstrap);
+    }
+
+    private void bootstrap() {
+        retry = null;
+        if (state == State.READY) return;
+        refresh(true);
+        retryUnlessReady();
+    }
+
+    // Повторяем и без расписания, и со старым срезом с диска: иначе до утреннего обновления отвечали бы по старому
+    private void retryUnlessReady() {
+        if (state == State.READY || retry != null) return;
+        log.warn("Schedule not refreshed (" + state + "), next attempt in " + retryDelayMillis + " ms");
+        retry = executor.schedule(this::bootstrap, retryDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Все обновления идут в потоке загрузки, чтобы ежедневное не наложилось на повтор начальной загрузки
+    @Scheduled(cron = "0 0 6 * * *")
+    public void downloadExcel() {
+        try {
+            executor.submit(() -> {
+                refresh(false);
+                retryUnlessReady();
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            log.error("Error refreshing schedule: " + e.getMessage());
+        }
+    }
+
+    // force - разобрать файлы, даже если загрузка ничего не поменяла: при старте они могли измениться на диске
+    private void refresh(boolean force) {
+        boolean refreshed = true;
+        try {
+            if (downloadExcel.downloadSchedules() || force) {
+                ScheduleSnapshot before = excelParser.getSnapshot();
+                excelParser.parseExel();
+                scheduleChangeNotifier.notifyChanges(before, excelParser.getSnapshot());
+            }
+        } catch (RuntimeException e) {
+            refreshed = false;
+            log.error("Error refreshing schedule: " + e.getMessage());
+        }
+
+        if (excelParser.getSnapshot().isEmpty()) return;
+        if (state == State.LOADING) {
+            log.info("Schedule ready in " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms after start");
+        }
+        state = refreshed ? State.READY : State.STALE;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public State getState() {return state;}
+
+    public boolean isLoading() {return state == State.LOADING;}
+}
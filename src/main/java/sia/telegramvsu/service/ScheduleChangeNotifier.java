@@ -0,0 +1,102 @@
+package sia.telegramvsu.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import sia.telegramvsu.model.LessonVSU;
+import sia.telegramvsu.model.ScheduleDiff;
+import sia.telegramvsu.model.ScheduleSnapshot;
+import sia.telegramvsu.model.User;
+import sia.telegramvsu.model.UserRepository;
+import sia.telegramvsu.model.WeekDay;
+
+import java.util.List;
+import java.util.Map;
+
+// После обновления расписания пишет только тем, у кого оно изменилось
+@Slf4j
+@Service
+public class ScheduleChangeNotifier {
+
+    private static final int MAX_MESSAGE_LENGTH = 4000;
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final TelegramSender telegramSender;
+
+    @Value("${notify.enabled:false}")
+    private boolean enabled;
+
+    public ScheduleChangeNotifier(UserRepository userRepository, UserCache userCache, TelegramSender telegramSender) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.telegramSender = telegramSender;
+    }
+
+    // Возвращает, сколько сообщений поставлено в очередь
+    public int notifyChanges(ScheduleSnapshot before, ScheduleSnapshot after) {
+        if (!enabled || before.isEmpty() || before.getVersion() == after.getVersion()) return 0;
+
+        long start = System.currentTimeMillis();
+        Map<String, List<ScheduleDiff.Change>> groups = ScheduleDiff.compare(before.getSchedule(), after.getSchedule());
+        Map<String, List<ScheduleDiff.Change>> teachers = ScheduleDiff.compare(before.getTeachers(), after.getTeachers());
+        if (groups.isEmpty() && teachers.isEmpty()) return 0;
+
+        userCache.flush();
+        int queued = notifyUsers(groups, TelegramBot.STUDENT) + notifyUsers(teachers, TelegramBot.TEACHER);
+        log.info("Schedule changed for " + groups.size() + " groups and " + teachers.size() + " teachers, "
+                + queued + " notifications queued in " + (System.currentTimeMillis() - start) + " ms");
+        return queued;
+    }
+
+    private int notifyUsers(Map<String, List<ScheduleDiff.Change>> changes, String status) {
+        int queued = 0;
+        for (Map.Entry<String, List<ScheduleDiff.Change>> entry : changes.entrySet()) {
+            List<User> users = userRepository.findByGroupAndStatus(entry.getKey(), status);
+            if (users.isEmpty()) continue;
+
+            String text = format(entry.getKey(), entry.getValue());
+            for (User user : users) {
+                SendMessage sendMessage = new SendMessage();
+                sendMessage.setChatId(user.getId());
+                sendMessage.setText(text);
+                sendMessage.setParseMode("HTML");
+                telegramSender.send(user.getId(), sendMessage, TelegramSender.Priority.BULK);
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    // Длинный список обрезается только между строками, чтобы не разорвать HTML-тег
+    static String format(String name, List<ScheduleDiff.Change> changes) {
+        StringBuilder sb = new StringBuilder("<b>Изменения в расписании ").append(name).append(":</b>\n");
+        WeekDay day = null;
+        for (ScheduleDiff.Change change : changes) {
+            StringBuilder line = new StringBuilder();
+            if (change.day() != day) {
+                day = change.day();
+                line.append("\n<u>").append(day.dayString).append(":</u>\n");
+            }
+            LessonVSU before = change.before();
+            LessonVSU after = change.after();
+            switch (change.type()) {
+                case ADDED -> line.append("+ №").append(after.getNumber()).append(' ').append(after.getSubject())
+                        .append(", ").append(after.getAuditorium());
+                case REMOVED -> line.append("− №").append(before.getNumber()).append(' ').append(before.getSubject());
+                case ROOM -> line.append("№").append(after.getNumber()).append(' ').append(after.getSubject())
+                        .append(": аудитория ").append(before.getAuditorium()).append(" → ").append(after.getAuditorium());
+                case TIME -> line.append(after.getSubject()).append(": №").append(before.getNumber())
+                        .append(" → №").append(after.getNumber()).append(' ').append(after.getTime());
+            }
+            line.append('\n');
+            if (sb.length() + line.length() > MAX_MESSAGE_LENGTH) {
+                sb.append("…");
+                break;
+            }
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+}
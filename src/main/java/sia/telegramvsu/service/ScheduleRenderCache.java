@@ -0,0 +1,66 @@
+package sia.telegramvsu.service;
+
+import sia.telegramvsu.model.WeekDay;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Готовые HTML-ответы для текущей версии расписания; при публикации новой версии кеш сбрасывается
+public class ScheduleRenderCache {
+
+    public enum Kind { STUDENT, TEACHER }
+
+    // day == null — ответ на всю неделю
+    private record Key(long version, Kind kind, String name, WeekDay day) {
+    }
+
+    private final Map<Key, String> renders = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private volatile int maxSize;
+    private volatile long version;
+
+    public ScheduleRenderCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public String get(long version, Kind kind, String name, WeekDay day, Supplier<String> render) {
+        Key key = new Key(version, kind, name, day);
+        String html;
+        synchronized (renders) {
+            html = renders.get(key);
+        }
+        if (html != null) return html;
+
+        html = render.get();
+        synchronized (renders) {
+            // запрос, начатый на старой версии, не должен засорять кеш новой
+            if (version == this.version && maxSize > 0) {
+                renders.put(key, html);
+            }
+        }
+        return html;
+    }
+
+    public void invalidate(long version) {
+        synchronized (renders) {
+            this.version = version;
+            renders.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (renders) {
+            return renders.size();
+        }
+    }
+}
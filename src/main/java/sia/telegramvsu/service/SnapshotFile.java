@@ -0,0 +1,186 @@
+package sia.telegramvsu.service;
+
+import sia.telegramvsu.model.LessonVSU;
+import sia.telegramvsu.model.WeekDay;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * Последнее разобранное расписание на диске, чтобы после перезапуска не ждать сайтов и POI.
+ *
+ * Формат (big-endian):
+ *   int magic "VSUS", int версия формата, long версия среза, long время создания
+ *   таблица строк: int количество, для каждой int длина и байты UTF-8
+ *   int количество файлов, для каждого:
+ *     int имя, long lastModified, long length, int количество групп, для каждой:
+ *       int имя, int количество дней, для каждого: byte день, int количество пар,
+ *         для каждой шесть ссылок на строки (номер, время, предмет, преподаватель, аудитория, дата), -1 - null
+ *   long CRC32 всего, что выше
+ *
+ * Индексы среза в файл не пишутся: ScheduleSnapshot строит их за миллисекунды при загрузке.
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x56535553;
+    static final int FORMAT_VERSION = 1;
+
+    record Contents(long version, long createdAt, Map<String, ExcelParser.Segment> segments) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    static void write(File file, long version, long createdAt, Map<String, ExcelParser.Segment> segments) throws IOException {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        segments.forEach((name, segment) -> {
+            id(ids, strings, name);
+            segment.groups().forEach((group, days) -> {
+                id(ids, strings, group);
+                days.values().forEach(lessons -> lessons.forEach(lesson -> {
+                    for (String value : fields(lesson)) id(ids, strings, value);
+                }));
+            });
+        });
+
+        File temp = new File(file.getParentFile(), file.getName() + ".part");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fos, crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(version);
+            out.writeLong(createdAt);
+
+            out.writeInt(strings.size());
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(segments.size());
+            for (Map.Entry<String, ExcelParser.Segment> entry : segments.entrySet()) {
+                ExcelParser.Segment segment = entry.getValue();
+                out.writeInt(ids.get(entry.getKey()));
+                out.writeLong(segment.lastModified());
+                out.writeLong(segment.length());
+                out.writeInt(segment.groups().size());
+                for (Map.Entry<String, Map<WeekDay, List<LessonVSU>>> group : segment.groups().entrySet()) {
+                    out.writeInt(ids.get(group.getKey()));
+                    out.writeInt(group.getValue().size());
+                    for (Map.Entry<WeekDay, List<LessonVSU>> day : group.getValue().entrySet()) {
+                        out.writeByte(day.getKey().ordinal());
+                        out.writeInt(day.getValue().size());
+                        for (LessonVSU lesson : day.getValue()) {
+                            for (String value : fields(lesson)) out.writeInt(value == null ? -1 : ids.get(value));
+                        }
+                    }
+                }
+            }
+            out.flush();
+            // Контрольная сумма пишется мимо CheckedOutputStream
+            DataOutputStream tail = new DataOutputStream(fos);
+            tail.writeLong(crc.getValue());
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Contents read(File file, boolean mmap) throws IOException {
+        ByteBuffer buffer;
+        if (mmap) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        } else {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        }
+
+        if (buffer.limit() < 32) throw new IOException("Snapshot file too short");
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(buffer.limit() - Long.BYTES));
+        if (crc.getValue() != buffer.getLong(buffer.limit() - Long.BYTES)) throw new IOException("Snapshot file corrupted");
+
+        if (buffer.getInt() != MAGIC) throw new IOException("Not a snapshot file");
+        int format = buffer.getInt();
+        if (format != FORMAT_VERSION) throw new IOException("Unsupported snapshot format " + format);
+        long version = buffer.getLong();
+        long createdAt = buffer.getLong();
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        WeekDay[] weekDays = WeekDay.values();
+        int segmentCount = buffer.getInt();
+        Map<String, ExcelParser.Segment> segments = new LinkedHashMap<>();
+        for (int s = 0; s < segmentCount; s++) {
+            String name = strings[buffer.getInt()];
+            long lastModified = buffer.getLong();
+            long length = buffer.getLong();
+            int groupCount = buffer.getInt();
+            Map<String, Map<WeekDay, List<LessonVSU>>> groups = new LinkedHashMap<>();
+            for (int g = 0; g < groupCount; g++) {
+                String group = strings[buffer.getInt()];
+                int dayCount = buffer.getInt();
+                Map<WeekDay, List<LessonVSU>> days = new EnumMap<>(WeekDay.class);
+                for (int d = 0; d < dayCount; d++) {
+                    WeekDay day = weekDays[buffer.get()];
+                    int lessonCount = buffer.getInt();
+                    List<LessonVSU> lessons = new ArrayList<>(lessonCount);
+                    for (int l = 0; l < lessonCount; l++) {
+                        LessonVSU lesson = new LessonVSU();
+                        lesson.setNumber(string(strings, buffer.getInt()));
+                        lesson.setTime(string(strings, buffer.getInt()));
+                        lesson.setSubject(string(strings, buffer.getInt()));
+                        lesson.setLector(string(strings, buffer.getInt()));
+                        lesson.setAuditorium(string(strings, buffer.getInt()));
+                        lesson.setDate(string(strings, buffer.getInt()));
+                        lessons.add(lesson);
+                    }
+                    days.put(day, Collections.unmodifiableList(lessons));
+                }
+                groups.put(group, Collections.unmodifiableMap(days));
+            }
+            segments.put(name, new ExcelParser.Segment(lastModified, length, Collections.unmodifiableMap(groups)));
+        }
+        return new Contents(version, createdAt, segments);
+    }
+
+    private static String[] fields(LessonVSU lesson) {
+        return new String[]{lesson.getNumber(), lesson.getTime(), lesson.getSubject(),
+                lesson.getLector(), lesson.getAuditorium(), lesson.getDate()};
+    }
+
+    private static void id(Map<String, Integer> ids, List<String> strings, String value) {
+        if (value == null || ids.containsKey(value)) return;
+        ids.put(value, strings.size());
+        strings.add(value);
+    }
+
+    private static String string(String[] strings, int id) {
+        return id < 0 ? null : strings[id];
+    }
+}
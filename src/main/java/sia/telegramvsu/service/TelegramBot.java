@@ -1,5 +1,6 @@
 package sia.telegramvsu.service;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.ws.rs.NotFoundException;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,24 +8,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import sia.telegramvsu.config.BotConfig;
 import sia.telegramvsu.model.NumberLesson;
 import sia.telegramvsu.model.User;
-import sia.telegramvsu.model.UserRepository;
 import sia.telegramvsu.model.WeekDay;
 
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -34,33 +32,60 @@ import java.util.List;
 @EnableScheduling
 public class TelegramBot extends TelegramLongPollingBot {
 
-    private final String TEACHER = "Преподаватель";
-    private final String STUDENT = "Cтудент";
-    private final String NOBODY = "Никто";
-
-    private UserRepository userRepository;
+    public static final String TEACHER = "Преподаватель";
+    public static final String STUDENT = "Cтудент";
+    public static final String NOBODY = "Никто";
+
+    private static final String TEACHER_PROMPT = "Введите ФИО так как указанно в расписании \nНапример: Дрозд Е. М.";
+    private static final String STUDENT_PROMPT = "Введите название группы вместе с подгруппой так как указанно в расписании \nНапример: 24ИСиТ1д_1";
+    private static final String LESSON_NUMBER_TEXT = """
+            Выберете номер занятия:
+            """;
+    private static final String DAY_TEXT = """
+            Выберете день недели:
+            """;
+    private static final String LOADING_TEXT = "Расписание загружается, попробуйте через минуту";
+
+    @Value("${bot.edit-in-place:true}")
+    private boolean editInPlace;
+
+    private UserCache userCache;
+    private UpdateDispatcher updateDispatcher;
+    private TelegramSender telegramSender;
+    private ScheduleBootstrap scheduleBootstrap;
     private BotConfig botConfig;
     private ExcelParser excelParser;
-    private DownloadExcel downloadExcel;
-    private WeekDay dayLesson;
 
-    @Scheduled(cron = "0 0 6 * * *")
-    public void downloadExcel() throws IOException {
-       downloadExcel.downloadSchedules();
-       excelParser.parseExel();
+    private final UpdateRouter<Request> commands = buildCommands();
+    private final UpdateRouter<Request> callbacks = buildCallbacks();
+
+    // То, что нужно обработчику команды или кнопки
+    private record Request(long chatId, int messageId, User user) {
     }
 
     @Autowired
-    public TelegramBot(@Value("${path.excel}") String exelPath, BotConfig botConfig,
-                       UserRepository userRepository, DownloadExcel downloadExcel, ExcelParser excelParser) throws IOException {
+    public TelegramBot(@Value("${path.excel}") String exelPath, @Value("${sender.threads:8}") int senderThreads, BotConfig botConfig,
+                       UserCache userCache, UpdateDispatcher updateDispatcher, TelegramSender telegramSender,
+                       ScheduleBootstrap scheduleBootstrap, ExcelParser excelParser) {
+        super(botOptions(senderThreads), botConfig.getToken());
         this.excelParser = excelParser;
         this.botConfig = botConfig;
-        this.userRepository = userRepository;
-        this.downloadExcel = downloadExcel;
+        this.userCache = userCache;
+        this.updateDispatcher = updateDispatcher;
+        this.telegramSender = telegramSender;
+        this.scheduleBootstrap = scheduleBootstrap;
+    }
 
-        downloadExcel.downloadSchedules();
-        excelParser.parseExel();
+    // Потоки бота выполняют executeAsync, поэтому их столько же, сколько одновременных запросов у TelegramSender
+    private static DefaultBotOptions botOptions(int senderThreads) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setMaxThreads(senderThreads);
+        return options;
+    }
 
+    @PostConstruct
+    public void startSender() {
+        telegramSender.start(this);
     }
 
     @Override
@@ -71,376 +96,197 @@ public class TelegramBot extends TelegramLongPollingBot {
 
     @Override
     public void onUpdateReceived(Update update) {
+        updateDispatcher.submit(update, this::handleUpdate);
+    }
+
+    // Для webhook: не ждёт места в очереди, false - очередь полна
+    public boolean offerUpdate(Update update) {
+        return updateDispatcher.offer(update, this::handleUpdate);
+    }
+
+    private void handleUpdate(Update update) {
         if (update.hasMessage() && update.getMessage().hasText()) {
 
             long chatId = update.getMessage().getChatId();
             Message msg = update.getMessage();
-            User user = userRepository.findById(chatId).orElse(new User());
+            User user = userCache.findById(chatId).orElse(null);
 
-            if (user.getUserName() == null ) {
+            if (user == null) {
                 registerUsersInDB(msg);
                 sendChosenStatus(chatId);
+                return;
             }
 
-            if (user.getUserName() != null) {
-                switch (msg.getText()) {
-                    case "/reset":
-                            user.setGroup(null);
-                            user.setStatus(NOBODY);
-                            userRepository.save(user);
-                            sendChosenStatus(chatId);
-
-                        return;
-                    case "/donate":
-                        sendMessage(chatId, """
-                                belinvestbank: 5578843371248679
-                                """);
-                        return;
-                    case "/free":
-                         sendChosenDayWeekForSearchLesson(chatId);
-                }
-
+            if (commands.dispatch(msg.getText(), new Request(chatId, msg.getMessageId(), user))) {
+                return;
             }
 
+            if (scheduleBootstrap.isLoading()) {
+                sendMessage(chatId, LOADING_TEXT);
+                return;
+            }
 
-            if (user.getStatus().equals(TEACHER) && user.getGroup() == null) {
-                if (excelParser.getTeacherHowInSchedule(msg.getText()) != null) {
-                    user.setGroup(excelParser.getTeacherHowInSchedule(msg.getText()));
-                    sendChosenDayWeek(chatId, msg.getText());
-                    userRepository.save(user);
-                    return;
+            if (TEACHER.equals(user.getStatus()) && user.getGroup() == null) {
+                String teacher = excelParser.getTeacherHowInSchedule(msg.getText());
+                if (teacher != null) {
+                    user.setGroup(teacher);
+                    sendChosenDayWeek(chatId, teacher);
+                    userCache.save(user);
                 } else {
-                    sendMessage(chatId,"Введите ФИО так как указанно в расписании \nНапример: Дрозд Е. М.");
-                    return;
+                    sendMessage(chatId,TEACHER_PROMPT
+                            + formatSuggestions(excelParser.suggestTeachers(msg.getText())));
                 }
+                return;
             }
 
-            if (user.getStatus().equals(STUDENT) && user.getGroup() == null) {
-                if (excelParser.getGroupHowInSchedule(msg.getText()) != null) {
-                    user.setGroup(excelParser.getGroupHowInSchedule(msg.getText()));
-                    sendChosenDayWeek(chatId, msg.getText());
-                    userRepository.save(user);
-                    return;
+            if (STUDENT.equals(user.getStatus()) && user.getGroup() == null) {
+                String group = excelParser.getGroupHowInSchedule(msg.getText());
+                if (group != null) {
+                    user.setGroup(group);
+                    sendChosenDayWeek(chatId, group);
+                    userCache.save(user);
                 } else {
-                    sendMessage(chatId,"Введите название группы вместе с подгруппой так как указанно в расписании \nНапример: 24ИСиТ1д_1");
-                    return;
+                    sendMessage(chatId,STUDENT_PROMPT
+                            + formatSuggestions(excelParser.suggestGroups(msg.getText())));
                 }
+                return;
             }
 
-
-
         } else if (update.hasCallbackQuery()) {
             long chatId = update.getCallbackQuery().getMessage().getChatId();
             int messageId = update.getCallbackQuery().getMessage().getMessageId();
             String callBackQuery = update.getCallbackQuery().getData();
-            User user = userRepository.findById(chatId).orElseThrow(() -> new NotFoundException("user not found with id " + chatId));
-            String group = user.getGroup();
-
-            if (callBackQuery.equals("MONDAY_BUTTON")) {
-
-                String message = user.getStatus().equals(TEACHER) ? excelParser.getDaySubjectsTeacher(WeekDay.MONDAY, group) : excelParser.getDaySubjectsStudent(WeekDay.MONDAY, group);
-                sendSchedules(chatId, message);
-                deleteMessages(chatId, messageId);
-
-            } else if (callBackQuery.equals("TUESDAY_BUTTON")) {
-
-                String message = user.getStatus().equals(TEACHER) ? excelParser.getDaySubjectsTeacher(WeekDay.TUESDAY, group) : excelParser.getDaySubjectsStudent(WeekDay.TUESDAY, group);
-                sendSchedules(chatId, message);
-                deleteMessages(chatId, messageId);
-
-            } else if (callBackQuery.equals("WEDNESDAY_BUTTON")) {
-
-                String message = user.getStatus().equals(TEACHER) ? excelParser.getDaySubjectsTeacher(WeekDay.WEDNESDAY, group) : excelParser.getDaySubjectsStudent(WeekDay.WEDNESDAY, group);
-                sendSchedules(chatId, message);
-                deleteMessages(chatId, messageId);
-
-            }else if (callBackQuery.equals("THURSDAY_BUTTON")) {
-
-                String message = user.getStatus().equals(TEACHER) ? excelParser.getDaySubjectsTeacher(WeekDay.THURSDAY, group) : excelParser.getDaySubjectsStudent(WeekDay.THURSDAY, group);
-                sendSchedules(chatId, message);
-                deleteMessages(chatId, messageId);
-
-            } else if (callBackQuery.equals("FRIDAY_BUTTON")) {
-
-                String message = user.getStatus().equals(TEACHER) ? excelParser.getDaySubjectsTeacher(WeekDay.FRIDAY, group) : excelParser.getDaySubjectsStudent(WeekDay.FRIDAY, group);
-                sendSchedules(chatId, message);
-                deleteMessages(chatId, messageId);
-
-            } else if (callBackQuery.equals("SATURDAY_BUTTON")) {
-
-                String message = user.getStatus().equals(TEACHER) ? excelParser.getDaySubjectsTeacher(WeekDay.SATURDAY, group) : excelParser.getDaySubjectsStudent(WeekDay.SATURDAY, group);
-                sendSchedules(chatId, message);
-                deleteMessages(chatId, messageId);
-
-            } else if (callBackQuery.equals("MONDAY_BUTTON_LESSON")) {
-                dayLesson = WeekDay.MONDAY;
-                sendChosenLessonNumber(chatId);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("TUESDAY_BUTTON_LESSON")) {
-                dayLesson = WeekDay.TUESDAY;
-                sendChosenLessonNumber(chatId);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("WEDNESDAY_BUTTON_LESSON")) {
-                dayLesson = WeekDay.WEDNESDAY;
-                sendChosenLessonNumber(chatId);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("THURSDAY_BUTTON_LESSON")) {
-                dayLesson = WeekDay.THURSDAY;
-                sendChosenLessonNumber(chatId);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("FRIDAY_BUTTON_LESSON")) {
-                dayLesson = WeekDay.FRIDAY;
-                sendChosenLessonNumber(chatId);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("LESSON_1")) {
-                sendMessage(chatId, excelParser.getFreeAuditoriums(dayLesson, NumberLesson.LESSON_1).toString());
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("LESSON_2")) {
-                sendMessage(chatId, excelParser.getFreeAuditoriums(dayLesson, NumberLesson.LESSON_2).toString());
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("LESSON_3")) {
-                sendMessage(chatId, excelParser.getFreeAuditoriums(dayLesson, NumberLesson.LESSON_3).toString());
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("LESSON_4")) {
-                sendMessage(chatId, excelParser.getFreeAuditoriums(dayLesson, NumberLesson.LESSON_4).toString());
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("LESSON_5")) {
-                sendMessage(chatId, excelParser.getFreeAuditoriums(dayLesson, NumberLesson.LESSON_5).toString());
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("LESSON_6")) {
-                sendMessage(chatId, excelParser.getFreeAuditoriums(dayLesson, NumberLesson.LESSON_6).toString());
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("LESSON_7")) {
-                sendMessage(chatId, excelParser.getFreeAuditoriums(dayLesson, NumberLesson.LESSON_7).toString());
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("LESSON_8")) {
-                sendMessage(chatId, excelParser.getFreeAuditoriums(dayLesson, NumberLesson.LESSON_8).toString());
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("ALL_BUTTON")) {
-                String message = user.getStatus().equals(TEACHER) ? excelParser.getWeekSubjectsTeacher(group) : excelParser.getWeekSubjectsStudent(group);
-                sendSchedules(chatId, message);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("CHANGE_DAY")) {
-                sendChosenDayWeek(chatId, user.getGroup());
-            } else if (callBackQuery.equals("TEACHER_BUTTON")) {
-                sendMessage(chatId, "Введите ФИО так как указанно в расписании \nНапример: Дрозд Е. М.");
-                user.setStatus(TEACHER);
-                user.setGroup(null);
-                userRepository.save(user);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("STUDENT_BUTTON")) {
-                sendMessage(chatId, "Введите название группы вместе с подгруппой так как указанно в расписании \nНапример: 24ИСиТ1д_1");
-                user.setStatus(STUDENT);
-                user.setGroup(null);
-                userRepository.save(user);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("ALL_BUTTON")) {
-                String message = user.getStatus().equals(TEACHER) ? excelParser.getWeekSubjectsTeacher(group) : excelParser.getWeekSubjectsStudent(group);
-                sendSchedules(chatId, message);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("CHANGE_DAY")) {
-                sendChosenDayWeek(chatId, user.getGroup());
-            } else if (callBackQuery.equals("TEACHER_BUTTON")) {
-                sendMessage(chatId, "Введите ФИО так как указанно в расписании \nНапример: Дрозд Е. М.");
-                user.setStatus(TEACHER);
-                user.setGroup(null);
-                userRepository.save(user);
-                deleteMessages(chatId, messageId);
-            } else if (callBackQuery.equals("STUDENT_BUTTON")) {
-                sendMessage(chatId, "Введите название группы вместе с подгруппой так как указанно в расписании \nНапример: 24ИСиТ1д_1");
-                user.setStatus(STUDENT);
-                user.setGroup(null);
-                userRepository.save(user);
-                deleteMessages(chatId, messageId);
+            if (scheduleBootstrap.isLoading()) {
+                answerCallback(chatId, update.getCallbackQuery().getId(), LOADING_TEXT);
+                return;
+            }
+            answerCallback(chatId, update.getCallbackQuery().getId(), null);
+            User user = userCache.findById(chatId).orElseThrow(() -> new NotFoundException("user not found with id " + chatId));
+
+            if (!callbacks.dispatch(callBackQuery, new Request(chatId, messageId, user))) {
+                log.warn("Unknown callback: " + callBackQuery);
             }
         }
     }
 
-    private void sendChosenLessonNumber(long chatId) {
-        SendMessage sendMessage = new SendMessage();
-        sendMessage.setChatId(chatId);
-        sendMessage.setText("""
-                Выберете номер занятия:
-                """);
-
-        InlineKeyboardMarkup inlineKeyboardButton = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rowsInLine = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine1 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine2 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine3 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine4 = new ArrayList<>();
-
-
-        var first = new InlineKeyboardButton();
-        var second = new InlineKeyboardButton();
-        var third = new InlineKeyboardButton();
-        var fourth = new InlineKeyboardButton();
-        var fifth = new InlineKeyboardButton();
-        var sixth = new InlineKeyboardButton();
-        var seventh = new InlineKeyboardButton();
-        var eight = new InlineKeyboardButton();
-
-
-
-        first.setText("1");
-        second.setText("2");
-        third.setText("3");
-        fourth.setText("4");
-        fifth.setText("5");
-        sixth.setText("6");
-        seventh.setText("7");
-        eight.setText("8");
-
-
-        first.setCallbackData("LESSON_1");
-        second.setCallbackData("LESSON_2");
-        third.setCallbackData("LESSON_3");
-        fourth.setCallbackData("LESSON_4");
-        fifth.setCallbackData("LESSON_5");
-        sixth.setCallbackData("LESSON_6");
-        seventh.setCallbackData("LESSON_7");
-        eight.setCallbackData("LESSON_8");
-
-        rowInLine1.add(first);
-        rowInLine1.add(second);
-        rowInLine2.add(third);
-        rowInLine2.add(fourth);
-        rowInLine3.add(fifth);
-        rowInLine3.add(sixth);
-        rowInLine4.add(seventh);
-        rowInLine4.add(eight);
-
-
-        rowsInLine.add(rowInLine1);
-        rowsInLine.add(rowInLine2);
-        rowsInLine.add(rowInLine3);
-        rowsInLine.add(rowInLine4);
-
-        inlineKeyboardButton.setKeyboard(rowsInLine);
-
-        sendMessage.setReplyMarkup(inlineKeyboardButton);
-        executeMessage(sendMessage);
+    private UpdateRouter<Request> buildCommands() {
+        return new UpdateRouter<Request>(' ', "commands")
+                .on("/reset", (request, args) -> {
+                    User user = request.user();
+                    user.setGroup(null);
+                    user.setStatus(NOBODY);
+                    userCache.save(user);
+                    sendChosenStatus(request.chatId());
+                })
+                .on("/donate", (request, args) -> sendMessage(request.chatId(), """
+                        belinvestbank: 5578843371248679
+                        """))
+                .on("/free", (request, args) -> sendChosenDayWeekForSearchLesson(request.chatId()));
+    }
+
+    private UpdateRouter<Request> buildCallbacks() {
+        UpdateRouter<Request> router = new UpdateRouter<>(':', "callbacks");
+        for (WeekDay day : WeekDay.values()) {
+            router.on(day.name() + "_BUTTON", (request, args) -> {
+                User user = request.user();
+                String message = TEACHER.equals(user.getStatus()) ? excelParser.getDaySubjectsTeacher(day, user.getGroup()) : excelParser.getDaySubjectsStudent(day, user.getGroup());
+                replyToButton(request, message, Keyboards.CHANGE_DAY);
+            });
+            router.on(day.name() + "_BUTTON_LESSON", (request, args) -> replyToButton(request, LESSON_NUMBER_TEXT, Keyboards.lessonNumbers(day)));
+        }
+        // День приходит вместе с номером пары: "LESSON_3:FRIDAY"
+        for (NumberLesson number : NumberLesson.values()) {
+            router.on(number.name(), (request, args) -> {
+                WeekDay day = WeekDay.of(args);
+                if (day == null) {
+                    // Кнопки, отправленные до этого формата, дня не содержат, а старые или испорченные - непонятный день:
+                    // просим выбрать день заново
+                    replyToButton(request, DAY_TEXT, Keyboards.DAY_WEEK_FOR_LESSON);
+                } else {
+                    replyToButton(request, excelParser.getFreeAuditoriums(day, number).toString(), null);
+                }
+            });
+        }
+        return router
+                .on("ALL_BUTTON", (request, args) -> {
+                    User user = request.user();
+                    String message = TEACHER.equals(user.getStatus()) ? excelParser.getWeekSubjectsTeacher(user.getGroup()) : excelParser.getWeekSubjectsStudent(user.getGroup());
+                    replyToButton(request, message, Keyboards.CHANGE_DAY);
+                })
+                .on("CHANGE_DAY", (request, args) -> {
+                    if (editInPlace) {
+                        replyToButton(request, dayWeekText(request.user().getGroup()), Keyboards.DAY_WEEK);
+                    } else {
+                        sendChosenDayWeek(request.chatId(), request.user().getGroup());
+                    }
+                })
+                .on("TEACHER_BUTTON", (request, args) -> {
+                    replyToButton(request, TEACHER_PROMPT, null);
+                    chooseStatus(request.user(), TEACHER);
+                })
+                .on("STUDENT_BUTTON", (request, args) -> {
+                    replyToButton(request, STUDENT_PROMPT, null);
+                    chooseStatus(request.user(), STUDENT);
+                });
+    }
+
+    // В режиме bot.edit-in-place ответ заменяет сообщение с нажатой кнопкой: один запрос к Telegram вместо двух
+    private void replyToButton(Request request, String text, InlineKeyboardMarkup keyboard) {
+        if (editInPlace) {
+            EditMessageText editMessage = new EditMessageText();
+            editMessage.setChatId(request.chatId());
+            editMessage.setMessageId(request.messageId());
+            editMessage.setText(text);
+            editMessage.setParseMode("HTML");
+            editMessage.setReplyMarkup(keyboard);
+            telegramSender.send(request.chatId(), editMessage, TelegramSender.Priority.INTERACTIVE);
+        } else {
+            SendMessage sendMessage = new SendMessage();
+            sendMessage.setChatId(request.chatId());
+            sendMessage.setText(text);
+            sendMessage.setParseMode("HTML");
+            sendMessage.setReplyMarkup(keyboard);
+            executeMessage(sendMessage);
+            deleteMessages(request.chatId(), request.messageId());
+        }
+    }
+
+    // Убирает «часики» на кнопке сразу, не дожидаясь ответа
+    // text - всплывающая подсказка над чатом, null - просто убрать часики с кнопки
+    private void answerCallback(long chatId, String callbackQueryId, String text) {
+        AnswerCallbackQuery answer = new AnswerCallbackQuery();
+        answer.setCallbackQueryId(callbackQueryId);
+        answer.setText(text);
+        telegramSender.send(chatId, answer, TelegramSender.Priority.INTERACTIVE);
+    }
+
+    private void chooseStatus(User user, String status) {
+        user.setStatus(status);
+        user.setGroup(null);
+        userCache.save(user);
     }
 
     private void sendChosenDayWeek(long chatId, String group) {
         SendMessage sendMessage = new SendMessage();
         sendMessage.setChatId(chatId);
-        sendMessage.setText("""
+        sendMessage.setText(dayWeekText(group));
+        sendMessage.setReplyMarkup(Keyboards.DAY_WEEK);
+        executeMessage(sendMessage);
+    }
+
+    private static String dayWeekText(String group) {
+        return """
                 %s
                 
                 Выберете день недели:
-                """.formatted(group));
-
-        InlineKeyboardMarkup inlineKeyboardButton = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rowsInLine = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine1 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine2 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine3 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine4 = new ArrayList<>();
-
-
-        var monButton = new InlineKeyboardButton();
-        var tuyButton = new InlineKeyboardButton();
-        var wedButton = new InlineKeyboardButton();
-        var thuButton = new InlineKeyboardButton();
-        var friButton = new InlineKeyboardButton();
-        var satButton = new InlineKeyboardButton();
-        var allButton = new InlineKeyboardButton();
-
-
-
-        monButton.setText("Понедельник");
-        tuyButton.setText("Вторник");
-        wedButton.setText("Среда");
-        thuButton.setText("Четверг");
-        friButton.setText("Пятница");
-        satButton.setText("Суббота");
-        allButton.setText("Вся неделя");
-
-
-        monButton.setCallbackData("MONDAY_BUTTON");
-        tuyButton.setCallbackData("TUESDAY_BUTTON");
-        wedButton.setCallbackData("WEDNESDAY_BUTTON");
-        thuButton.setCallbackData("THURSDAY_BUTTON");
-        friButton.setCallbackData("FRIDAY_BUTTON");
-        satButton.setCallbackData("SATURDAY_BUTTON");
-        allButton.setCallbackData("ALL_BUTTON");
-
-        rowInLine1.add(monButton);
-        rowInLine1.add(tuyButton);
-        rowInLine2.add(wedButton);
-        rowInLine2.add(thuButton);
-        rowInLine3.add(friButton);
-        rowInLine3.add(satButton);
-        rowInLine4.add(allButton);
-
-
-        rowsInLine.add(rowInLine1);
-        rowsInLine.add(rowInLine2);
-        rowsInLine.add(rowInLine3);
-        rowsInLine.add(rowInLine4);
-
-        inlineKeyboardButton.setKeyboard(rowsInLine);
-
-        sendMessage.setReplyMarkup(inlineKeyboardButton);
-        executeMessage(sendMessage);
+                """.formatted(group);
     }
 
     private void sendChosenDayWeekForSearchLesson(long chatId) {
         SendMessage sendMessage = new SendMessage();
         sendMessage.setChatId(chatId);
-        sendMessage.setText("""
-                Выберете день недели:
-                """);
-
-        InlineKeyboardMarkup inlineKeyboardButton = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rowsInLine = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine1 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine2 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine3 = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine4 = new ArrayList<>();
-
-
-        var monButton = new InlineKeyboardButton();
-        var tuyButton = new InlineKeyboardButton();
-        var wedButton = new InlineKeyboardButton();
-        var thuButton = new InlineKeyboardButton();
-        var friButton = new InlineKeyboardButton();
-        var satButton = new InlineKeyboardButton();
-        var allButton = new InlineKeyboardButton();
-
-
-
-        monButton.setText("Понедельник");
-        tuyButton.setText("Вторник");
-        wedButton.setText("Среда");
-        thuButton.setText("Четверг");
-        friButton.setText("Пятница");
-        satButton.setText("Суббота");
-
-
-        monButton.setCallbackData("MONDAY_BUTTON_LESSON");
-        tuyButton.setCallbackData("TUESDAY_BUTTON_LESSON");
-        wedButton.setCallbackData("WEDNESDAY_BUTTON_LESSON");
-        thuButton.setCallbackData("THURSDAY_BUTTON_LESSON");
-        friButton.setCallbackData("FRIDAY_BUTTON_LESSON");
-        satButton.setCallbackData("SATURDAY_BUTTON_LESSON");
-
-        rowInLine1.add(monButton);
-        rowInLine1.add(tuyButton);
-        rowInLine2.add(wedButton);
-        rowInLine2.add(thuButton);
-        rowInLine3.add(friButton);
-        rowInLine3.add(satButton);
-
-
-        rowsInLine.add(rowInLine1);
-        rowsInLine.add(rowInLine2);
-        rowsInLine.add(rowInLine3);
-
-        inlineKeyboardButton.setKeyboard(rowsInLine);
-
-        sendMessage.setReplyMarkup(inlineKeyboardButton);
+        sendMessage.setText(DAY_TEXT);
+        sendMessage.setReplyMarkup(Keyboards.DAY_WEEK_FOR_LESSON);
         executeMessage(sendMessage);
     }
 
@@ -448,53 +294,7 @@ public class TelegramBot extends TelegramLongPollingBot {
         SendMessage sendMessage = new SendMessage();
         sendMessage.setText("Кто вы?");
         sendMessage.setChatId(chatId);
-
-        InlineKeyboardMarkup inlineKeyboardButton = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rowsInLine = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine1 = new ArrayList<>();
-
-        var teacherButton = new InlineKeyboardButton();
-        var studentButton = new InlineKeyboardButton();
-
-        teacherButton.setText("Преподаватель");
-        studentButton.setText("Студент");
-
-        teacherButton.setCallbackData("TEACHER_BUTTON");
-        studentButton.setCallbackData("STUDENT_BUTTON");
-
-        rowInLine1.add(teacherButton);
-        rowInLine1.add(studentButton);
-
-        rowsInLine.add(rowInLine1);
-
-        inlineKeyboardButton.setKeyboard(rowsInLine);
-
-        sendMessage.setReplyMarkup(inlineKeyboardButton);
-        executeMessage(sendMessage);
-    }
-
-    private void sendSchedules(long chatId, String formatDaySchedules) {
-        SendMessage sendMessage = new SendMessage();
-        sendMessage.setChatId(chatId);
-        sendMessage.setText(formatDaySchedules);
-        sendMessage.setParseMode("HTML");
-
-        InlineKeyboardMarkup inlineKeyboardButton = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rowsInLine = new ArrayList<>();
-        List<InlineKeyboardButton> rowInLine = new ArrayList<>();
-
-        var dayButton = new InlineKeyboardButton();
-
-        dayButton.setText("Выбрать другой день");
-        dayButton.setCallbackData("CHANGE_DAY");
-
-        rowInLine.add(dayButton);
-
-        rowsInLine.add(rowInLine);
-
-        inlineKeyboardButton.setKeyboard(rowsInLine);
-
-        sendMessage.setReplyMarkup(inlineKeyboardButton);
+        sendMessage.setReplyMarkup(Keyboards.STATUS);
         executeMessage(sendMessage);
     }
 
@@ -504,11 +304,7 @@ public class TelegramBot extends TelegramLongPollingBot {
         deleteMessage.setChatId(chatId);
         deleteMessage.setMessageId(messageId);
 
-        try {
-            execute(deleteMessage);
-        } catch (TelegramApiException e) {
-            log.error("Error in time sending message" + e.getMessage());
-        }
+        telegramSender.send(chatId, deleteMessage, TelegramSender.Priority.INTERACTIVE);
     }
 
     private void sendMessage(long chatId, String message) {
@@ -519,6 +315,11 @@ public class TelegramBot extends TelegramLongPollingBot {
         executeMessage(sendMessage);
     }
 
+    private String formatSuggestions(List<String> suggestions) {
+        if (suggestions.isEmpty()) return "";
+        return "\n\nВозможно, вы имели в виду: " + String.join(", ", suggestions);
+    }
+
     private void registerUsersInDB(Message msg) {
         var chat = msg.getChat();
 
@@ -529,15 +330,12 @@ public class TelegramBot extends TelegramLongPollingBot {
         user.setUserName(chat.getUserName());
         user.setStatus(NOBODY);
 
-        userRepository.save(user);
+        userCache.save(user);
         log.info("User register " + user.toString());
     }
 
+    // Не ждёт ответа Telegram: сообщение встаёт в очередь отправки
     private void executeMessage(SendMessage sendMessage) {
-        try {
-            execute(sendMessage);
-        } catch (TelegramApiException e) {
-            log.error("Error in time sending message" + e.getMessage());
-        }
+        telegramSender.send(Long.parseLong(sendMessage.getChatId()), sendMessage, TelegramSender.Priority.INTERACTIVE);
     }
 }
@@ -0,0 +1,335 @@
+package sia.telegramvsu.service;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Очередь исходящих запросов к Telegram: не больше sender.global-rate в секунду всего и sender.chat-rate в каждый чат,
+// ответы пользователям уходят раньше рассылок
+@Slf4j
+@Component
+public class TelegramSender {
+
+    public enum Priority {INTERACTIVE, BULK}
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final TokenBucket global;
+    private final double chatRate;
+    private final int chatBurst;
+    private final int maxAttempts;
+    private final long drainTimeoutMillis;
+    private final Semaphore inFlight;
+
+    private final PriorityBlockingQueue<Job> ready = new PriorityBlockingQueue<>(64,
+            Comparator.comparing(Job::priority).thenComparingLong(Job::sequence));
+    private final Map<Long, TokenBucket> chats = new ConcurrentHashMap<>();
+    // Чаты, где запрос ждёт повтора после 429: остальные запросы чата ждут вместе с ним, чтобы его не обогнать
+    private final Map<Long, List<Job>> held = new HashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // Отложенные до своего места в лимите чата, до повтора после 429 или придержанные за таким повтором
+    private final Set<Job> delayed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "telegram-sender-delay"));
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+
+    private volatile AbsSender bot;
+    private volatile boolean running;
+    // После остановки запросы не принимаются; до start() копятся в очереди
+    private volatile boolean stopped;
+
+    private static final class Job {
+        private final Priority priority;
+        private final long sequence;
+        private final long chatId;
+        private final BotApiMethod<? extends Serializable> method;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+        // Место в лимите чата уже забронировано, второй раз ждать не нужно
+        private boolean reserved;
+        private int attempts;
+        // Ждёт повтора после 429 и держит за собой остальные запросы чата
+        private volatile boolean retrying;
+
+        private Job(Priority priority, long sequence, long chatId, BotApiMethod<? extends Serializable> method) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.chatId = chatId;
+            this.method = method;
+        }
+
+        private Priority priority() {return priority;}
+
+        private long sequence() {return sequence;}
+    }
+
+    // Корзина токенов в виде расписания: каждый запрос бронирует ближайшее свободное время
+    static final class TokenBucket {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        // Когда корзина снова будет полной
+        private long fullAt;
+
+        TokenBucket(double ratePerSecond, int burst) {
+            this.intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+            this.toleranceNanos = intervalNanos * Math.max(0, burst - 1);
+            this.fullAt = System.nanoTime();
+        }
+
+        // Сколько наносекунд ждать до своего места
+        synchronized long reserve(long now) {
+            long base = Math.max(fullAt, now);
+            fullAt = base + intervalNanos;
+            return Math.max(0, base - toleranceNanos - now);
+        }
+
+        synchronized boolean isIdle(long now) {
+            return fullAt <= now;
+        }
+    }
+
+    public TelegramSender(@Value("${sender.global-rate:30}") double globalRate,
+                          @Value("${sender.chat-rate:1}") double chatRate,
+                          @Value("${sender.chat-burst:3}") int chatBurst,
+                          @Value("${sender.threads:8}") int threads,
+                          @Value("${sender.attempts:3}") int maxAttempts,
+                          @Value("${sender.drain-timeout:10000}") long drainTimeoutMillis) {
+        this.global = new TokenBucket(globalRate, 1);
+        this.chatRate = chatRate;
+        this.chatBurst = chatBurst;
+        this.inFlight = new Semaphore(threads);
+        this.maxAttempts = maxAttempts;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        scheduler.scheduleWithFixedDelay(this::removeIdleChats, 1, 1, TimeUnit.MINUTES);
+    }
+
+    public synchronized void start(AbsSender bot) {
+        if (running || stopped) return;
+        this.bot = bot;
+        running = true;
+        Thread thread = new Thread(this::dispatchLoop, "telegram-sender");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Завершается true, когда Telegram принял запрос, и false, если отправить не удалось
+    public CompletableFuture<Boolean> send(long chatId, BotApiMethod<? extends Serializable> method, Priority priority) {
+        if (stopped) {
+            failed.increment();
+            return CompletableFuture.completedFuture(false);
+        }
+        Job job = new Job(priority, sequence.incrementAndGet(), chatId, method);
+        ready.add(job);
+        // Остановка могла пройти между проверкой и добавлением - тогда запрос уже никто не отправит
+        if (stopped && ready.remove(job)) {
+            failed.increment();
+            job.done.complete(false);
+        }
+        return job.done;
+    }
+
+    private void dispatchLoop() {
+        while (running || !ready.isEmpty()) {
+            try {
+                Job job = ready.poll(100, TimeUnit.MILLISECONDS);
+                if (job == null || holdBack(job)) continue;
+
+                // Ответ на нажатие кнопки не сообщение в чат и под лимит чата не попадает
+                if (!job.reserved && !(job.method instanceof AnswerCallbackQuery)) {
+                    job.reserved = true;
+                    long wait = chats.computeIfAbsent(job.chatId, id -> new TokenBucket(chatRate, chatBurst)).reserve(System.nanoTime());
+                    if (wait > 0) {
+                        later(job, wait);
+                        continue;
+                    }
+                }
+                // Общий лимит касается всех, поэтому здесь можно просто подождать
+                TimeUnit.NANOSECONDS.sleep(global.reserve(System.nanoTime()));
+                inFlight.acquire();
+                execute(job);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void execute(Job job) {
+        job.attempts++;
+        long start = System.nanoTime();
+        CompletableFuture<? extends Serializable> future;
+        try {
+            future = executeAsync(job.method);
+        } catch (TelegramApiException e) {
+            inFlight.release();
+            failed.increment();
+            record(job, start, "error");
+            finish(job, false);
+            log.error("Error in time sending message" + e.getMessage());
+            return;
+        }
+        future.whenComplete((result, error) -> {
+            inFlight.release();
+            record(job, start, error == null ? "ok" : "error");
+            if (error == null) {
+                sent.increment();
+                recordLatency(job);
+                finish(job, true);
+            } else {
+                onError(job, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+    }
+
+    // Время одного запроса к Bot API, без ожидания в очереди
+    private static void record(Job job, long start, String outcome) {
+        Timer.builder("telegram.request")
+                .tag("method", job.method.getMethod())
+                .tag("priority", job.priority.name())
+                .tag("outcome", outcome)
+                .register(Metrics.globalRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // От постановки в очередь до ответа Telegram, с ожиданием лимитов и повторами
+    private static void recordLatency(Job job) {
+        Timer.builder("telegram.latency")
+                .tag("priority", job.priority.name())
+                .register(Metrics.globalRegistry)
+                .record(System.nanoTime() - job.enqueuedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private <T extends Serializable> CompletableFuture<T> executeAsync(BotApiMethod<T> method) throws TelegramApiException {
+        return bot.executeAsync(method);
+    }
+
+    private void onError(Job job, Throwable error) {
+        if (error instanceof TelegramApiRequestException request
+                && request.getErrorCode() != null && request.getErrorCode() == TOO_MANY_REQUESTS
+                && job.attempts < maxAttempts) {
+            int retryAfter = request.getParameters() != null && request.getParameters().getRetryAfter() != null
+                    ? request.getParameters().getRetryAfter() : 1;
+            retried.increment();
+            log.warn("Telegram asked to retry after " + retryAfter + " s, chat " + job.chatId);
+            hold(job);
+            later(job, TimeUnit.SECONDS.toNanos(retryAfter));
+            return;
+        }
+        failed.increment();
+        finish(job, false);
+        log.error("Error in time sending message" + error.getMessage());
+    }
+
+    private void later(Job job, long nanos) {
+        delayed.add(job);
+        try {
+            scheduler.schedule(() -> {
+                ready.add(job);
+                delayed.remove(job);
+            }, nanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Отправитель уже остановлен, запрос не уйдёт
+            delayed.remove(job);
+            failed.increment();
+            finish(job, false);
+            log.warn("Telegram request dropped on shutdown, chat " + job.chatId);
+        }
+    }
+
+    private void finish(Job job, boolean ok) {
+        if (job.retrying) release(job);
+        job.done.complete(ok);
+    }
+
+    private synchronized void hold(Job job) {
+        job.retrying = true;
+        held.putIfAbsent(job.chatId, new ArrayList<>());
+    }
+
+    private synchronized boolean holdBack(Job job) {
+        List<Job> waiting = held.get(job.chatId);
+        if (waiting == null || job.retrying || job.method instanceof AnswerCallbackQuery) return false;
+        waiting.add(job);
+        delayed.add(job);
+        return true;
+    }
+
+    // Повтор отправлен или окончательно не удался - придержанные запросы возвращаются в очередь в прежнем порядке
+    private synchronized void release(Job job) {
+        job.retrying = false;
+        List<Job> waiting = held.remove(job.chatId);
+        if (waiting == null) return;
+        ready.addAll(waiting);
+        waiting.forEach(delayed::remove);
+    }
+
+    private void removeIdleChats() {
+        long now = System.nanoTime();
+        chats.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+        try {
+            while (getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopped = true;
+        running = false;
+        scheduler.shutdownNow();
+        if (getQueueDepth() > 0) {
+            log.warn("Telegram requests not sent before shutdown: " + getQueueDepth());
+        }
+        // Отложенные запросы больше не уйдут, ждущие их получают false
+        synchronized (this) {
+            held.clear();
+        }
+        for (Job job : List.copyOf(delayed)) {
+            delayed.remove(job);
+            failed.increment();
+            job.done.complete(false);
+        }
+    }
+
+    public int getQueueDepth() {return ready.size() + delayed.size();}
+
+    public long getSent() {return sent.sum();}
+
+    public long getFailed() {return failed.sum();}
+
+    public long getRetried() {return retried.sum();}
+}
@@ -0,0 +1,180 @@
+package sia.telegramvsu.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Обновления разных чатов обрабатываются параллельно, обновления одного чата - строго по очереди
+@Slf4j
+@Component
+@DependsOn({"userCache", "telegramSender"})
+public class UpdateDispatcher {
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore capacity;
+    private final int queueSize;
+    private final long drainTimeoutMillis;
+
+    private final Map<Long, ChatQueue> chats = new HashMap<>();
+    private volatile boolean accepting = true;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public UpdateDispatcher(@Value("${updates.threads:16}") int threads,
+                            @Value("${updates.queue-size:1000}") int queueSize,
+                            @Value("${updates.drain-timeout:30000}") long drainTimeoutMillis) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "update-" + threadNumber.incrementAndGet()));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.capacity = new Semaphore(queueSize);
+        this.queueSize = queueSize;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    // Ждёт свободного места: пока очередь полна, long polling не забирает новые обновления
+    public void submit(Update update, Consumer<Update> handler) {
+        if (!accepting) {
+            reject(update);
+            return;
+        }
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(update);
+            return;
+        }
+        enqueue(update, handler);
+    }
+
+    // Не ждёт: false, если очередь полна и обновление нужно вернуть отправителю
+    public boolean offer(Update update, Consumer<Update> handler) {
+        if (!accepting || !capacity.tryAcquire()) {
+            reject(update);
+            return false;
+        }
+        enqueue(update, handler);
+        return true;
+    }
+
+    private void enqueue(Update update, Consumer<Update> handler) {
+        long chatId = chatIdOf(update);
+        Runnable task = () -> handler.accept(update);
+        boolean start;
+        ChatQueue queue;
+        synchronized (chats) {
+            queue = chats.computeIfAbsent(chatId, ChatQueue::new);
+            queue.tasks.add(task);
+            start = !queue.scheduled;
+            queue.scheduled = true;
+        }
+        if (!start) return;
+        try {
+            executor.execute(queue);
+        } catch (RejectedExecutionException e) {
+            // Остановка началась между проверкой и постановкой в пул
+            queue.run();
+        }
+    }
+
+    private void reject(Update update) {
+        rejected.incrementAndGet();
+        log.warn("Update rejected: " + update.getUpdateId());
+    }
+
+    public static long chatIdOf(Update update) {
+        if (update.hasMessage()) return update.getMessage().getChatId();
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        return 0;
+    }
+
+    // Одно обновление за запуск, чтобы активный чат не занимал поток надолго
+    private final class ChatQueue implements Runnable {
+        private final long chatId;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+
+        private ChatQueue(long chatId) {
+            this.chatId = chatId;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                synchronized (chats) {
+                    task = tasks.poll();
+                }
+                try {
+                    task.run();
+                    processed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    log.error("Error processing update in chat " + chatId + ": " + e.getMessage(), e);
+                } finally {
+                    capacity.release();
+                }
+
+                synchronized (chats) {
+                    if (tasks.isEmpty()) {
+                        scheduled = false;
+                        chats.remove(chatId);
+                        return;
+                    }
+                }
+                try {
+                    executor.execute(this);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // Пул уже останавливается - дорабатываем очередь чата в этом потоке
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Updates not drained in " + drainTimeoutMillis + " ms: " + getInFlight() + " left");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    public int getInFlight() {return queueSize - capacity.availablePermits();}
+
+    public int getActiveThreads() {return executor.getActiveCount();}
+
+    public long getProcessed() {return processed.get();}
+
+    public long getRejected() {return rejected.get();}
+
+    public long getFailed() {return failed.get();}
+}
@@ -0,0 +1,62 @@
+package sia.telegramvsu.service;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Таблица маршрутов: ключ до разделителя выбирает обработчик, остаток передаётся ему как аргументы
+public class UpdateRouter<C> {
+
+    @FunctionalInterface
+    public interface Handler<C> {
+        void handle(C context, String args);
+    }
+
+    private record Route<C>(Handler<C> handler, Timer timer) {
+    }
+
+    private final char separator;
+    private final String name;
+    private final Map<String, Route<C>> routes = new HashMap<>();
+
+    public UpdateRouter(char separator) {
+        this(separator, null);
+    }
+
+    // name - тег router у таймера bot.route; без имени маршруты в Micrometer не попадают
+    public UpdateRouter(char separator, String name) {
+        this.separator = separator;
+        this.name = name;
+    }
+
+    // Маршруты регистрируются при создании бота, после этого таблица только читается
+    public UpdateRouter<C> on(String key, Handler<C> handler) {
+        Timer timer = name == null ? null : Timer.builder("bot.route")
+                .tag("router", name)
+                .tag("route", key)
+                .register(Metrics.globalRegistry);
+        if (routes.putIfAbsent(key, new Route<>(handler, timer)) != null) {
+            throw new IllegalStateException("Route already registered: " + key);
+        }
+        return this;
+    }
+
+    // false, если для ключа нет обработчика
+    public boolean dispatch(String payload, C context) {
+        if (payload == null) return false;
+        int split = payload.indexOf(separator);
+        String key = split < 0 ? payload : payload.substring(0, split);
+        Route<C> route = routes.get(key);
+        if (route == null) return false;
+
+        String args = split < 0 ? "" : payload.substring(split + 1);
+        if (route.timer() == null) {
+            route.handler().handle(context, args);
+        } else {
+            route.timer().record(() -> route.handler().handle(context, args));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+package sia.telegramvsu.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sia.telegramvsu.model.User;
+import sia.telegramvsu.model.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Пользователи читаются из базы один раз и живут в памяти, изменения копятся и пишутся в базу пачками.
+// Кеш у каждого экземпляра свой, поэтому он рассчитан на один экземпляр бота: при нескольких за балансировщиком
+// один может до users.ttl отвечать по старой записи, пока другой держит у себя ещё не записанные изменения
+@Slf4j
+@Service
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // null в user - пользователя нет в базе, чтобы незарегистрированные не ходили в базу на каждое сообщение
+    private record Entry(User user, long loadedAt) {
+    }
+
+    private final Map<Long, Entry> entries;
+    private final Map<Long, User> dirty = new ConcurrentHashMap<>();
+    // То, что сейчас пишется в базу, - читать из базы эти записи ещё рано
+    private volatile Map<Long, User> flushing = Map.of();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedUsers = new AtomicLong();
+    private final AtomicLong flushErrors = new AtomicLong();
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${users.cache-size:10000}") int maxSize,
+                     @Value("${users.ttl:600000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > UserCache.this.maxSize;
+            }
+        };
+    }
+
+    public Optional<User> findById(Long id) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null && now - entry.loadedAt() < ttlMillis) {
+                hits.incrementAndGet();
+                return Optional.ofNullable(entry.user());
+            }
+        }
+        misses.incrementAndGet();
+
+        // Ещё не записанная версия новее той, что лежит в базе
+        User pending = dirty.get(id);
+        if (pending == null) pending = flushing.get(id);
+        User user = pending != null ? copy(pending) : userRepository.findById(id).orElse(null);
+        synchronized (entries) {
+            // Пока читали из базы, пользователя могли сохранить - его версия свежее
+            Entry saved = entries.get(id);
+            if (saved != null && saved.loadedAt() >= now) return Optional.ofNullable(saved.user());
+            entries.put(id, new Entry(user, now));
+        }
+        return Optional.ofNullable(user);
+    }
+
+    public void save(User user) {
+        synchronized (entries) {
+            entries.put(user.getId(), new Entry(user, System.currentTimeMillis()));
+        }
+        dirty.put(user.getId(), copy(user));
+    }
+
+    @Scheduled(fixedDelayString = "${users.flush-interval:5000}")
+    public synchronized void flush() {
+        if (dirty.isEmpty()) return;
+
+        // Сначала запись становится видна во flushing и только потом уходит из dirty:
+        // иначе промах в findById между этими шагами не нашёл бы её нигде и прочитал бы старую из базы
+        Map<Long, User> taken = new HashMap<>(dirty);
+        if (taken.isEmpty()) return;
+        flushing = taken;
+        // Сохранённое за это время более свежее изменение остаётся в dirty до следующей записи
+        taken.forEach((id, user) -> dirty.remove(id, user));
+        List<User> batch = new ArrayList<>(taken.values());
+
+        try {
+            userRepository.saveAll(batch);
+            flushes.incrementAndGet();
+            flushedUsers.addAndGet(batch.size());
+            log.info("Users flushed: " + batch.size());
+        } catch (RuntimeException e) {
+            // Вернём обратно то, что не успели перезаписать более свежими изменениями
+            batch.forEach(user -> dirty.putIfAbsent(user.getId(), user));
+            flushErrors.incrementAndGet();
+            log.error("Error flushing users: " + e.getMessage());
+        } finally {
+            flushing = Map.of();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public long getHits() {return hits.get();}
+
+    public long getMisses() {return misses.get();}
+
+    public long getFlushes() {return flushes.get();}
+
+    public long getFlushedUsers() {return flushedUsers.get();}
+
+    public long getFlushErrors() {return flushErrors.get();}
+
+    public int getPending() {return dirty.size();}
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setUserName(user.getUserName());
+        copy.setGroup(user.getGroup());
+        copy.setStatus(user.getStatus());
+        return copy;
+    }
+}
@@ -0,0 +1,85 @@
+package sia.telegramvsu.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// Приём обновлений от Telegram по webhook: проверяет секрет, разбирает JSON и сразу отдаёт в очередь обработки.
+// Работает в том же Tomcat (server.port), что и actuator: снаружи порт для Telegram открывает балансировщик
+@Slf4j
+@RestController
+public class WebhookController {
+
+    public static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${webhook.secret:}")
+    private String secret;
+
+    // null, пока бот не в режиме webhook: запросы на путь webhook тогда получают 404
+    private volatile Predicate<Update> ingest;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong unauthorized = new AtomicLong();
+
+    // ingest возвращает false, если очередь обработки полна - тогда Telegram повторит запрос позже.
+    // Секрет обязателен: за балансировщиком все экземпляры регистрируют один webhook, и секрет у них должен совпадать
+    public void start(Predicate<Update> ingest) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("webhook.secret must be set in webhook mode");
+        }
+        this.ingest = ingest;
+        log.info("Webhook accepting updates");
+    }
+
+    @PostMapping("${webhook.path:/telegram}")
+    public ResponseEntity<Void> receive(@RequestHeader(value = SECRET_HEADER, required = false) String token,
+                                        @RequestBody(required = false) byte[] body) {
+        Predicate<Update> ingest = this.ingest;
+        if (ingest == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8))) {
+            unauthorized.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Update update;
+        try {
+            update = objectMapper.readValue(body == null ? new byte[0] : body, Update.class);
+        } catch (IOException e) {
+            log.error("Error reading webhook update: " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (ingest.test(update)) {
+            accepted.incrementAndGet();
+            return ResponseEntity.ok().build();
+        }
+        rejected.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    public String getSecret() {return secret;}
+
+    public long getAccepted() {return accepted.get();}
+
+    public long getRejected() {return rejected.get();}
+
+    public long getUnauthorized() {return unauthorized.get();}
+}
@@ -0,0 +1,52 @@
+package sia.telegramvsu.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import sia.telegramvsu.model.LessonVSU;
+import sia.telegramvsu.model.ScheduleSnapshot;
+import sia.telegramvsu.model.WeekDay;
+import sia.telegramvsu.service.ExcelParser;
+import sia.telegramvsu.service.ScheduleBootstrap;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MetricsConfigTest {
+
+    private static LessonVSU lesson(String number, String subject, String auditorium) {
+        LessonVSU lesson = new LessonVSU();
+        lesson.setNumber(number);
+        lesson.setTime("8.30-9.50");
+        lesson.setSubject(subject);
+        lesson.setLector("Дрозд Е. М.");
+        lesson.setAuditorium(auditorium);
+        return lesson;
+    }
+
+    @Test
+    void scheduleGaugesFollowPublishedSnapshot() {
+        ScheduleSnapshot snapshot = new ScheduleSnapshot(3, Instant.now().minusSeconds(120), Map.of(
+                "24ИСиТ1д_1", Map.of(WeekDay.MONDAY, List.of(lesson("1", "Математика", "1-101"), lesson("2", "", ""))),
+                "24ИСиТ1д_2", Map.of(WeekDay.MONDAY, List.of(lesson("1", "Физика", "1-102")))));
+        ExcelParser excelParser = mock(ExcelParser.class);
+        when(excelParser.getSnapshot()).thenReturn(snapshot);
+        ScheduleBootstrap bootstrap = mock(ScheduleBootstrap.class);
+        when(bootstrap.getState()).thenReturn(ScheduleBootstrap.State.STALE);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MetricsConfig().scheduleMetrics(excelParser, bootstrap).bindTo(registry);
+
+        assertEquals(2, registry.get("schedule.groups").gauge().value());
+        assertEquals(2, registry.get("schedule.lessons").gauge().value());
+        assertEquals(3, registry.get("schedule.version").gauge().value());
+        assertTrue(registry.get("schedule.age").gauge().value() >= 120);
+        assertEquals(1, registry.get("schedule.state").tag("state", "STALE").gauge().value());
+        assertEquals(0, registry.get("schedule.state").tag("state", "READY").gauge().value());
+    }
+}
@@ -0,0 +1,37 @@
+package sia.telegramvsu.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import sia.telegramvsu.model.ScheduleSnapshot;
+import sia.telegramvsu.service.ExcelParser;
+import sia.telegramvsu.service.ScheduleBootstrap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScheduleHealthIndicatorTest {
+
+    private final ScheduleBootstrap bootstrap = mock(ScheduleBootstrap.class);
+    private final ExcelParser excelParser = mock(ExcelParser.class);
+    private final ScheduleHealthIndicator indicator = new ScheduleHealthIndicator(bootstrap, excelParser);
+
+    @Test
+    void outOfServiceWhileLoading() {
+        when(excelParser.getSnapshot()).thenReturn(ScheduleSnapshot.EMPTY);
+        when(bootstrap.getState()).thenReturn(ScheduleBootstrap.State.LOADING);
+
+        assertEquals(Status.OUT_OF_SERVICE, indicator.health().getStatus());
+    }
+
+    @Test
+    void upWhenReadyOrServingOldSnapshot() {
+        when(excelParser.getSnapshot()).thenReturn(ScheduleSnapshot.EMPTY);
+        when(bootstrap.getState()).thenReturn(ScheduleBootstrap.State.STALE);
+        assertEquals(Status.UP, indicator.health().getStatus());
+        assertEquals("STALE", indicator.health().getDetails().get("state"));
+
+        when(bootstrap.getState()).thenReturn(ScheduleBootstrap.State.READY);
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+}
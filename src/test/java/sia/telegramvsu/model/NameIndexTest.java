@@ -0,0 +1,46 @@
+package sia.telegramvsu.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NameIndexTest {
+
+    private final NameIndex groups = new NameIndex(List.of(
+            "24ИСиТ1д_1", "24ИСиТ1д_2", "24ИСиТ2д_1", "23ПИ1д_1", "22Физ1д_1"));
+    private final NameIndex teachers = new NameIndex(List.of("Дрозд Е. М.", "Ковалёв А. Б.", "Новик В. Г."));
+
+    @Test
+    void normalizesCaseSpacesDotsAndYo() {
+        assertEquals("дроздем", NameIndex.normalize(" Дрозд Е. М. "));
+        assertEquals("ковалеваб", NameIndex.normalize("КОВАЛЁВ А.Б."));
+        assertEquals("Ковалёв А. Б.", teachers.find("ковалев аб"));
+        assertNull(teachers.find("Петров"));
+    }
+
+    @Test
+    void treatsLatinLookAlikesAsCyrillic() {
+        assertEquals("24ИСиТ1д_1", groups.find("24ИСuТ1д_1"));
+        assertEquals("24ИСиТ1д_1", groups.find("24ИCuT1д_1"));
+        assertEquals("Ковалёв А. Б.", teachers.find("Koвaлeв A. Б."));
+    }
+
+    @Test
+    void suggestsClosestNamesForTypos() {
+        assertEquals(List.of("24ИСиТ1д_1"), groups.suggest("24ИСиТ1д_", 1));
+        assertEquals("Новик В. Г.", teachers.suggest("Навик В Г", 3).get(0));
+        assertEquals(List.of(), groups.suggest("", 3));
+        assertEquals(List.of(), groups.suggest(null, 3));
+    }
+
+    @Test
+    void suggestsByPrefixAndSubstringForShortQueries() {
+        assertEquals(List.of("24ИСиТ1д_1", "24ИСиТ1д_2", "24ИСиТ2д_1"), groups.suggest("24", 3));
+        assertEquals(List.of("24ИСиТ1д_1", "24ИСиТ1д_2"), groups.suggest("ИСиТ", 2));
+        assertEquals(List.of("Дрозд Е. М."), teachers.suggest("Дрозд", 3));
+        assertEquals(List.of(), groups.suggest("Химия", 3));
+    }
+}
@@ -0,0 +1,78 @@
+package sia.telegramvsu.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleDiffTest {
+
+    @Test
+    void unchangedGroupsAndDatesAreIgnored() {
+        Map<String, Map<WeekDay, List<LessonVSU>>> before = Map.of("A", Map.of(WeekDay.MONDAY,
+                List.of(lesson("1", "Математика", "1-101", "01.09"))));
+        Map<String, Map<WeekDay, List<LessonVSU>>> after = Map.of("A", Map.of(WeekDay.MONDAY,
+                List.of(lesson("1", "Математика", "1-101", "08.09"))), "B", Map.of());
+
+        assertTrue(ScheduleDiff.compare(before, after).isEmpty());
+    }
+
+    @Test
+    void reportsAddedRemovedRoomAndTimeChanges() {
+        Map<WeekDay, List<LessonVSU>> before = Map.of(WeekDay.TUESDAY, List.of(
+                lesson("1", "Математика", "1-101", ""),
+                lesson("2", "Физика", "2-202", ""),
+                lesson("3", "История", "3-303", "")));
+        Map<WeekDay, List<LessonVSU>> after = Map.of(WeekDay.TUESDAY, List.of(
+                lesson("1", "Математика", "1-105", ""),
+                lesson("4", "Физика", "2-202", ""),
+                lesson("5", "Химия", "4-404", "")));
+
+        List<ScheduleDiff.Change> changes = ScheduleDiff.compare(Map.of("A", before), Map.of("A", after)).get("A");
+
+        assertEquals(4, changes.size());
+        assertEquals(1, count(changes, ScheduleDiff.Type.ROOM));
+        assertEquals(1, count(changes, ScheduleDiff.Type.TIME));
+        assertEquals(1, count(changes, ScheduleDiff.Type.REMOVED));
+        assertEquals(1, count(changes, ScheduleDiff.Type.ADDED));
+        ScheduleDiff.Change moved = changes.stream().filter(change -> change.type() == ScheduleDiff.Type.TIME).findFirst().orElseThrow();
+        assertEquals("2", moved.before().getNumber());
+        assertEquals("4", moved.after().getNumber());
+    }
+
+    @Test
+    void vanishedGroupIsNotReported() {
+        Map<String, Map<WeekDay, List<LessonVSU>>> before = Map.of("A", Map.of(WeekDay.MONDAY,
+                List.of(lesson("1", "Математика", "1-101", ""))));
+
+        assertTrue(ScheduleDiff.compare(before, Map.of()).isEmpty());
+    }
+
+    @Test
+    void comparesContentsOfDifferentInstances() {
+        Map<WeekDay, List<LessonVSU>> days = Map.of(WeekDay.MONDAY, List.of(lesson("1", "Математика", "1-101", "")));
+        Map<WeekDay, List<LessonVSU>> changed = Map.of(WeekDay.MONDAY, List.of(lesson("1", "Математика", "1-102", "")));
+
+        // Тот же объект - группа из неизменённого файла
+        assertTrue(ScheduleDiff.compare(Map.of("A", days), Map.of("A", days)).isEmpty());
+        assertEquals(ScheduleDiff.Type.ROOM, ScheduleDiff.compare(Map.of("A", days), Map.of("A", changed)).get("A").get(0).type());
+    }
+
+    private static long count(List<ScheduleDiff.Change> changes, ScheduleDiff.Type type) {
+        return changes.stream().filter(change -> change.type() == type).count();
+    }
+
+    private static LessonVSU lesson(String number, String subject, String auditorium, String date) {
+        LessonVSU lesson = new LessonVSU();
+        lesson.setNumber(number);
+        lesson.setTime("time" + number);
+        lesson.setSubject(subject);
+        lesson.setLector("Дрозд Е. М.");
+        lesson.setAuditorium(auditorium);
+        lesson.setDate(date);
+        return lesson;
+    }
+}
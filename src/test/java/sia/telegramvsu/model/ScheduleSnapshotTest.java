@@ -0,0 +1,49 @@
+package sia.telegramvsu.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ScheduleSnapshotTest {
+
+    @Test
+    void auditoriumBusyOnMondayIsFreeOnTuesday() {
+        ScheduleSnapshot snapshot = new ScheduleSnapshot(1, Map.of(
+                "24ИСиТ1д_1", Map.of(
+                        WeekDay.MONDAY, List.of(lesson("№1", "Математика", "1-101"), lesson("№2", "Физика", "1-102")),
+                        WeekDay.TUESDAY, List.of(lesson("№1", "Физика", "1-102"))),
+                "24ИСиТ1д_2", Map.of(
+                        WeekDay.MONDAY, List.of(lesson("1.0", "История", "2-201")))));
+
+        assertEquals(List.of("1-102"), snapshot.getFreeAuditoriums(WeekDay.MONDAY, NumberLesson.LESSON_1));
+        assertEquals(List.of("1-101", "2-201"), snapshot.getFreeAuditoriums(WeekDay.TUESDAY, NumberLesson.LESSON_1));
+        assertEquals(List.of("1-101", "2-201"), snapshot.getFreeAuditoriums(WeekDay.MONDAY, NumberLesson.LESSON_2));
+        // Без дня аудитория свободна, только если свободна в этот номер пары во все дни
+        assertEquals(List.of(), snapshot.getFreeAuditoriums(null, NumberLesson.LESSON_1));
+    }
+
+    @Test
+    void lessonNumberIsReadFromAnyCellFormat() {
+        assertEquals(NumberLesson.LESSON_1, NumberLesson.of("1"));
+        assertEquals(NumberLesson.LESSON_1, NumberLesson.of("1.0"));
+        assertEquals(NumberLesson.LESSON_1, NumberLesson.of("№1"));
+        assertEquals(NumberLesson.LESSON_8, NumberLesson.of(" №8 "));
+        assertNull(NumberLesson.of("9"));
+        assertNull(NumberLesson.of("8.30-9.50"));
+        assertNull(NumberLesson.of(null));
+    }
+
+    private static LessonVSU lesson(String number, String subject, String auditorium) {
+        LessonVSU lesson = new LessonVSU();
+        lesson.setNumber(number);
+        lesson.setTime("8.30-9.50");
+        lesson.setSubject(subject);
+        lesson.setLector("Дрозд Е. М.");
+        lesson.setAuditorium(auditorium);
+        return lesson;
+    }
+}
@@ -0,0 +1,86 @@
+package sia.telegramvsu.service;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ApachePoiTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    void streamingReaderMatchesWorkbookGrid() throws IOException {
+        File file = new File(folder, "1.xlsx");
+        ScheduleWorkbookFixture.write(file, "24ИСиТ", 6);
+
+        List<List<String>> expected = ApachePoi.parseExcelWithMergedCells(file);
+
+        List<List<String>> streamed = new ArrayList<>();
+        int[] size = new int[2];
+        ApachePoi.streamExcelWithMergedCells(file, new ApachePoi.SheetRowHandler() {
+            @Override
+            public void sheetSize(int rowCount, int columnCount) {
+                size[0] = rowCount;
+                size[1] = columnCount;
+            }
+
+            @Override
+            public void row(int rowNum, List<String> cells) {
+                assertEquals(streamed.size(), rowNum);
+                streamed.add(cells);
+            }
+        });
+
+        assertEquals(expected.size(), size[0]);
+        assertEquals(expected.get(0).size(), size[1]);
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void overlappingRegionsResolveToFirstInFileInBothModes() throws IOException {
+        File file = new File(folder, "overlap.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream fos = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet();
+            for (int r = 0; r < 3; r++) {
+                sheet.createRow(r).createCell(2).setCellValue("");
+            }
+            sheet.getRow(0).createCell(0).setCellValue("A");
+            sheet.getRow(1).createCell(1).setCellValue("B");
+            sheet.getRow(2).createCell(0).setCellValue("C");
+            // C записана раньше, но начинается ниже остальных
+            sheet.addMergedRegionUnsafe(new CellRangeAddress(2, 2, 0, 1));
+            sheet.addMergedRegionUnsafe(new CellRangeAddress(0, 1, 0, 1));
+            sheet.addMergedRegionUnsafe(new CellRangeAddress(1, 2, 1, 2));
+            workbook.write(fos);
+        }
+
+        List<List<String>> expected = ApachePoi.parseExcelWithMergedCells(file);
+        List<List<String>> streamed = new ArrayList<>();
+        ApachePoi.streamExcelWithMergedCells(file, new ApachePoi.SheetRowHandler() {
+            @Override
+            public void sheetSize(int rowCount, int columnCount) {
+            }
+
+            @Override
+            public void row(int rowNum, List<String> cells) {
+                streamed.add(cells);
+            }
+        });
+
+        assertEquals(List.of("A", "A", ""), expected.get(0));
+        assertEquals(List.of("A", "A", "B"), expected.get(1));
+        assertEquals(List.of("C", "C", "B"), expected.get(2));
+        assertEquals(expected, streamed);
+    }
+}
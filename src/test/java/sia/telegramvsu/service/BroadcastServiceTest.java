@@ -0,0 +1,190 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import sia.telegramvsu.model.LessonVSU;
+import sia.telegramvsu.model.ScheduleSnapshot;
+import sia.telegramvsu.model.User;
+import sia.telegramvsu.model.UserRepository;
+import sia.telegramvsu.model.WeekDay;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BroadcastServiceTest {
+
+    // Вторник
+    private static final LocalDate DATE = LocalDate.of(2026, 10, 20);
+
+    @TempDir
+    File folder;
+
+    private final UserRepository repository = mock(UserRepository.class);
+    private final ExcelParser excelParser = mock(ExcelParser.class);
+    private final TelegramSender sender = mock(TelegramSender.class);
+    private final List<User> users = List.of(
+            user(1, "24ИСиТ1д_1", TelegramBot.STUDENT),
+            user(2, "24ИСиТ1д_1", TelegramBot.STUDENT),
+            user(3, "24ИСиТ1д_1", TelegramBot.STUDENT),
+            user(4, "Нет такой", TelegramBot.STUDENT),
+            user(5, "24ИСиТ1д_1", TelegramBot.NOBODY));
+    private ScheduleSnapshot snapshot;
+    private BroadcastService broadcast;
+
+    private static ScheduleSnapshot snapshot(String date) {
+        LessonVSU lesson = new LessonVSU();
+        lesson.setNumber("1");
+        lesson.setSubject("Математика");
+        lesson.setLector("Дрозд Е. М.");
+        lesson.setAuditorium("1-101");
+        lesson.setTime("8.30-9.50");
+        lesson.setDate(date);
+        return new ScheduleSnapshot(1, Map.of("24ИСиТ1д_1", Map.of(WeekDay.TUESDAY, List.of(lesson))));
+    }
+
+    @BeforeEach
+    void setUp() {
+        snapshot = snapshot("20.10");
+        when(excelParser.getSnapshot()).thenAnswer(invocation -> snapshot);
+        when(excelParser.getDaySubjectsStudent(any(ScheduleSnapshot.class), eq(WeekDay.TUESDAY), eq("24ИСиТ1д_1")))
+                .thenReturn("вторник");
+        when(sender.send(anyLong(), any(), eq(TelegramSender.Priority.BULK))).thenReturn(CompletableFuture.completedFuture(true));
+        when(repository.findPageAfter(anyString(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            String group = invocation.getArgument(0);
+            long id = invocation.getArgument(1);
+            int size = invocation.<Pageable>getArgument(2).getPageSize();
+            return users.stream()
+                    .sorted(Comparator.comparing(User::getGroup).thenComparing(User::getId))
+                    .filter(user -> user.getGroup().compareTo(group) > 0 || user.getGroup().equals(group) && user.getId() > id)
+                    .limit(size)
+                    .toList();
+        });
+
+        broadcast = new BroadcastService(repository, mock(UserCache.class), excelParser, sender);
+        ReflectionTestUtils.setField(broadcast, "pathExcel", folder.getPath() + File.separator);
+        ReflectionTestUtils.setField(broadcast, "pageSize", 2);
+    }
+
+    @Test
+    void sendsOncePerUserAndRendersOncePerGroup() {
+        BroadcastService.Report report = broadcast.broadcast(DATE);
+
+        assertEquals(3, report.sent());
+        assertEquals(2, report.skipped());
+        verify(excelParser, times(1)).getDaySubjectsStudent(snapshot, WeekDay.TUESDAY, "24ИСиТ1д_1");
+
+        // Повторный запуск в тот же вечер ничего не отправляет
+        broadcast.broadcast(DATE);
+        verify(sender, times(3)).send(anyLong(), any(), any());
+    }
+
+    @Test
+    void resumesAfterSavedCursor() throws Exception {
+        saveCursor(DATE, false);
+
+        BroadcastService.Report report = broadcast.broadcast(DATE);
+
+        assertEquals(1, report.sent());
+        verify(sender, times(1)).send(eq(3L), any(), any());
+        verify(sender, never()).send(eq(1L), any(), any());
+    }
+
+    // Перезапуск посреди рассылки: досылаем, как только загрузится расписание
+    @Test
+    void resumesUnfinishedBroadcastAfterRestart() throws Exception {
+        saveCursor(DATE, false);
+        snapshot = ScheduleSnapshot.EMPTY;
+
+        broadcast.resumeUnfinished(DATE);
+        verify(sender, never()).send(anyLong(), any(), any());
+
+        snapshot = snapshot("20.10");
+        broadcast.resumeUnfinished(DATE);
+        verify(sender, times(1)).send(eq(3L), any(), any());
+        verify(sender, never()).send(eq(1L), any(), any());
+    }
+
+    @Test
+    void doesNotResumeFinishedOrOldBroadcast() throws Exception {
+        saveCursor(DATE, true);
+        broadcast.resumeUnfinished(DATE);
+
+        saveCursor(DATE.minusDays(1), false);
+        broadcast.resumeUnfinished(DATE);
+
+        verify(sender, never()).send(anyLong(), any(), any());
+    }
+
+    @Test
+    void skipsScheduleOfAnotherWeek() {
+        // В файле всё ещё прошлый вторник
+        snapshot = snapshot("13.10.2026");
+
+        BroadcastService.Report report = broadcast.broadcast(DATE);
+
+        assertEquals(0, report.sent());
+        assertEquals(5, report.skipped());
+        verify(sender, never()).send(anyLong(), any(), any());
+    }
+
+    @Test
+    void rendersFromSnapshotTakenAtStart() {
+        ScheduleSnapshot taken = snapshot;
+        // Расписание обновилось, пока шла рассылка
+        when(repository.findPageAfter(anyString(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            snapshot = snapshot("20.10");
+            return users.stream().filter(user -> invocation.<Long>getArgument(1) == Long.MIN_VALUE).limit(1).toList();
+        });
+
+        broadcast.broadcast(DATE);
+
+        verify(excelParser).getDaySubjectsStudent(taken, WeekDay.TUESDAY, "24ИСиТ1д_1");
+        verify(excelParser, never()).getDaySubjectsStudent(WeekDay.TUESDAY, "24ИСиТ1д_1");
+    }
+
+    @Test
+    void skipsSunday() {
+        assertEquals(null, broadcast.broadcast(LocalDate.of(2026, 10, 18)));
+        verify(repository, never()).findPageAfter(anyString(), anyLong(), any());
+    }
+
+    private void saveCursor(LocalDate date, boolean done) throws Exception {
+        Properties cursor = new Properties();
+        cursor.setProperty("date", date.toString());
+        cursor.setProperty("group", "24ИСиТ1д_1");
+        cursor.setProperty("id", "2");
+        cursor.setProperty("done", String.valueOf(done));
+        try (OutputStream out = new FileOutputStream(new File(folder, "broadcast.properties"))) {
+            cursor.store(out, null);
+        }
+    }
+
+    private static User user(long id, String group, String status) {
+        User user = new User();
+        user.setId(id);
+        user.setGroup(group);
+        user.setStatus(status);
+        return user;
+    }
+}
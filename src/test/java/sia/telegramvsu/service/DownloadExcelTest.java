@@ -0,0 +1,169 @@
+package sia.telegramvsu.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadExcelTest {
+
+    @TempDir
+    File folder;
+
+    private HttpServer server;
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger missingCalls = new AtomicInteger();
+    private final AtomicInteger limitedCalls = new AtomicInteger();
+    private volatile String bioVersion = "v1";
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/math.html", exchange -> respond(exchange, 200,
+                "<a href=\"/files/math.xlsx\">math</a><a href=\"/news.html\">news</a>"));
+        server.createContext("/bio.html", exchange -> respond(exchange, 200,
+                "<a href=\"/files/bio-1.xlsx\">1</a><a href=\"/files/flaky.xlsx\">2</a>"));
+        server.createContext("/broken.html", exchange -> respond(exchange, 500, "down"));
+        server.createContext("/cut.html", exchange -> respond(exchange, 200, "<a href=\"/files/cut.xlsx\">cut</a>"));
+        server.createContext("/errors.html", exchange -> respond(exchange, 200,
+                "<a href=\"/files/missing.xlsx\">1</a><a href=\"/files/limited.xlsx\">2</a><a href=\"/files/bare.xlsx\">3</a>"));
+        server.createContext("/files/", exchange -> {
+            String name = exchange.getRequestURI().getPath().substring("/files/".length());
+            if (name.equals("cut.xlsx")) {
+                // Обещаем больше, чем отдаём: соединение рвётся посреди файла
+                exchange.sendResponseHeaders(200, 1000);
+                try (exchange) {
+                    exchange.getResponseBody().write("PK partial".getBytes(StandardCharsets.UTF_8));
+                    exchange.getResponseBody().flush();
+                } catch (IOException ignored) {
+                }
+            } else if (name.equals("missing.xlsx")) {
+                missingCalls.incrementAndGet();
+                respond(exchange, 404, "not found");
+            } else if (name.equals("limited.xlsx") && limitedCalls.getAndIncrement() == 0) {
+                respond(exchange, 429, "slow down");
+            } else if (name.equals("bare.xlsx")) {
+                // Сервер отвечает 304, хотя условного запроса не было
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else if (name.equals("flaky.xlsx") && flakyCalls.getAndIncrement() == 0) {
+                respond(exchange, 503, "busy");
+            } else if (name.equals("math.xlsx")) {
+                exchange.getResponseHeaders().set("ETag", "\"math-1\"");
+                if ("\"math-1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                } else {
+                    respond(exchange, 200, "content of " + name);
+                }
+            } else if (name.equals("bio-1.xlsx")) {
+                respond(exchange, 200, "content of " + name + " " + bioVersion);
+            } else {
+                respond(exchange, 200, "content of " + name);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void downloadsLinkedFilesInPageOrderWithRetries() throws IOException {
+        DownloadExcel downloadExcel = downloadExcel("/math.html", "/broken.html", "/bio.html");
+
+        assertTrue(downloadExcel.downloadSchedules());
+
+        assertEquals("content of math.xlsx", read("1.xlsx"));
+        assertEquals("content of bio-1.xlsx v1", read("2.xlsx"));
+        assertEquals("content of flaky.xlsx", read("3.xlsx"));
+        assertEquals(2, flakyCalls.get());
+        assertFalse(new File(folder, "4.xlsx").exists());
+    }
+
+    @Test
+    void skipsUnchangedFilesOnNextRun() throws IOException {
+        DownloadExcel downloadExcel = downloadExcel("/math.html", "/bio.html");
+        assertTrue(downloadExcel.downloadSchedules());
+        long bioModified = new File(folder, "2.xlsx").lastModified();
+
+        assertFalse(downloadExcel.downloadSchedules());
+        assertEquals(1, notModified.get());
+        assertEquals(bioModified, new File(folder, "2.xlsx").lastModified());
+
+        bioVersion = "v2";
+        assertTrue(downloadExcel.downloadSchedules());
+        assertEquals("content of bio-1.xlsx v2", read("2.xlsx"));
+        assertEquals("content of math.xlsx", read("1.xlsx"));
+    }
+
+    @Test
+    void removesPartialFileWhenTransferBreaks() {
+        DownloadExcel downloadExcel = downloadExcel("/cut.html", "/math.html");
+
+        assertTrue(downloadExcel.downloadSchedules());
+
+        assertEquals(List.of("2.xlsx"), List.of(folder.list((dir, name) -> name.contains(".xlsx"))));
+    }
+
+    @Test
+    void retriesOnlyServerErrorsAndTooManyRequests() throws IOException {
+        DownloadExcel downloadExcel = downloadExcel("/errors.html");
+
+        assertTrue(downloadExcel.downloadSchedules());
+
+        assertEquals(1, missingCalls.get());
+        assertEquals(2, limitedCalls.get());
+        assertEquals("content of limited.xlsx", read("2.xlsx"));
+        // Пустой ответ 304 не записан вместо файла
+        assertEquals(List.of("2.xlsx"), List.of(folder.list((dir, name) -> name.contains(".xlsx"))));
+    }
+
+    private DownloadExcel downloadExcel(String... pages) {
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        DownloadExcel downloadExcel = new DownloadExcel();
+        ReflectionTestUtils.setField(downloadExcel, "pathExcel", folder.getPath() + File.separator);
+        ReflectionTestUtils.setField(downloadExcel, "siteUrls", Arrays.stream(pages).map(page -> base + page).toList());
+        ReflectionTestUtils.setField(downloadExcel, "threads", 4);
+        ReflectionTestUtils.setField(downloadExcel, "perHostLimit", 2);
+        ReflectionTestUtils.setField(downloadExcel, "connectTimeout", 1000);
+        ReflectionTestUtils.setField(downloadExcel, "readTimeout", 1000);
+        ReflectionTestUtils.setField(downloadExcel, "retries", 2);
+        ReflectionTestUtils.setField(downloadExcel, "backoffMillis", 10L);
+        return downloadExcel;
+    }
+
+    private String read(String name) throws IOException {
+        return Files.readString(new File(folder, name).toPath());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", status == 200 && body.startsWith("<") ? "text/html" : "application/octet-stream");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
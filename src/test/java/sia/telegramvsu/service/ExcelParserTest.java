@@ -0,0 +1,104 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExcelParserTest {
+
+    @TempDir
+    File folder;
+
+    private ExcelParser excelParser;
+
+    @BeforeEach
+    void setUp() {
+        excelParser = new ExcelParser();
+        excelParser.setFilePath(folder.getPath());
+        excelParser.setStreaming(true);
+        excelParser.setParallel(false);
+        excelParser.setSnapshotEnabled(false);
+    }
+
+    private static void breakFile(File file) throws IOException {
+        Files.writeString(file.toPath(), "не файл excel");
+    }
+
+    @Test
+    void reusesSegmentsOfUnchangedFiles() throws IOException {
+        ScheduleWorkbookFixture.write(new File(folder, "1.xlsx"), "24ИСиТ", 2);
+        ScheduleWorkbookFixture.write(new File(folder, "2.xlsx"), "24ПИ", 2);
+        excelParser.parseExel();
+        ExcelParser.Segment first = excelParser.getSegments().get("1.xlsx");
+        ExcelParser.Segment second = excelParser.getSegments().get("2.xlsx");
+        long version = excelParser.getSnapshot().getVersion();
+
+        // Ничего не изменилось - тот же срез
+        excelParser.parseExel();
+        assertEquals(version, excelParser.getSnapshot().getVersion());
+
+        File changed = new File(folder, "2.xlsx");
+        ScheduleWorkbookFixture.write(changed, "24ПИ", 3);
+        assertTrue(changed.setLastModified(changed.lastModified() + 2000));
+        excelParser.parseExel();
+
+        assertSame(first, excelParser.getSegments().get("1.xlsx"));
+        assertNotSame(second, excelParser.getSegments().get("2.xlsx"));
+        assertEquals(Set.of("24ИСиТ0", "24ИСиТ1", "24ПИ0", "24ПИ1", "24ПИ2"), excelParser.getSchedule().keySet());
+        assertTrue(excelParser.getSnapshot().getVersion() > version);
+    }
+
+    @Test
+    void removesGroupsOfDeletedFiles() throws IOException {
+        ScheduleWorkbookFixture.write(new File(folder, "1.xlsx"), "24ИСиТ", 2);
+        ScheduleWorkbookFixture.write(new File(folder, "2.xlsx"), "24ПИ", 2);
+        excelParser.parseExel();
+
+        assertTrue(new File(folder, "2.xlsx").delete());
+        excelParser.parseExel();
+
+        assertEquals(Set.of("1.xlsx"), excelParser.getSegments().keySet());
+        assertEquals(Set.of("24ИСиТ0", "24ИСиТ1"), excelParser.getSchedule().keySet());
+    }
+
+    @Test
+    void keepsPreviousSegmentWhenFileFailsToParse() throws IOException {
+        ScheduleWorkbookFixture.write(new File(folder, "1.xlsx"), "24ИСиТ", 2);
+        ScheduleWorkbookFixture.write(new File(folder, "2.xlsx"), "24ПИ", 2);
+        excelParser.parseExel();
+        ExcelParser.Segment previous = excelParser.getSegments().get("2.xlsx");
+        long version = excelParser.getSnapshot().getVersion();
+
+        breakFile(new File(folder, "2.xlsx"));
+        excelParser.parseExel();
+
+        // Битый файл не меняет расписание и не выпускает новую версию
+        assertSame(previous, excelParser.getSegments().get("2.xlsx"));
+        assertEquals(version, excelParser.getSnapshot().getVersion());
+        assertEquals(Set.of("24ИСиТ0", "24ИСиТ1", "24ПИ0", "24ПИ1"), excelParser.getSchedule().keySet());
+    }
+
+    @Test
+    void parallelParsePublishesValidFilesNextToBrokenOne() throws IOException {
+        ScheduleWorkbookFixture.write(new File(folder, "1.xlsx"), "24ИСиТ", 2);
+        breakFile(new File(folder, "2.xlsx"));
+        ScheduleWorkbookFixture.write(new File(folder, "3.xlsx"), "24ПИ", 2);
+        excelParser.setParallel(true);
+        excelParser.setParserThreads(3);
+
+        excelParser.parseExel();
+
+        assertEquals(Set.of("1.xlsx", "3.xlsx"), excelParser.getSegments().keySet());
+        assertEquals(Set.of("24ИСиТ0", "24ИСиТ1", "24ПИ0", "24ПИ1"), excelParser.getSchedule().keySet());
+    }
+}
@@ -0,0 +1,42 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import sia.telegramvsu.model.WeekDay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeyboardsTest {
+
+    private static List<InlineKeyboardMarkup> all() {
+        List<InlineKeyboardMarkup> keyboards = new ArrayList<>(List.of(
+                Keyboards.STATUS, Keyboards.DAY_WEEK, Keyboards.DAY_WEEK_FOR_LESSON, Keyboards.CHANGE_DAY));
+        for (WeekDay day : WeekDay.values()) {
+            keyboards.add(Keyboards.lessonNumbers(day));
+        }
+        return keyboards;
+    }
+
+    // Клавиатуры общие для всех сообщений: ни строку, ни ряд кнопок изменить нельзя
+    @Test
+    void sharedKeyboardsAreReadOnly() {
+        for (InlineKeyboardMarkup keyboard : all()) {
+            List<List<InlineKeyboardButton>> rows = keyboard.getKeyboard();
+            assertThrows(UnsupportedOperationException.class, () -> rows.add(List.of()));
+            assertThrows(UnsupportedOperationException.class, () -> rows.get(0).add(new InlineKeyboardButton()));
+        }
+    }
+
+    @Test
+    void buildsEachKeyboardOnce() {
+        assertSame(Keyboards.lessonNumbers(WeekDay.FRIDAY), Keyboards.lessonNumbers(WeekDay.FRIDAY));
+        assertEquals("LESSON_3:FRIDAY", Keyboards.lessonNumbers(WeekDay.FRIDAY).getKeyboard().get(1).get(0).getCallbackData());
+        assertEquals("ALL_BUTTON", Keyboards.DAY_WEEK.getKeyboard().get(3).get(0).getCallbackData());
+    }
+}
@@ -0,0 +1,150 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import sia.telegramvsu.model.LessonVSU;
+import sia.telegramvsu.model.ScheduleSnapshot;
+import sia.telegramvsu.model.WeekDay;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScheduleBootstrapTest {
+
+    private final DownloadExcel downloadExcel = mock(DownloadExcel.class);
+    private final ExcelParser excelParser = mock(ExcelParser.class);
+    private final AtomicReference<ScheduleSnapshot> snapshot = new AtomicReference<>(ScheduleSnapshot.EMPTY);
+    private ScheduleBootstrap bootstrap;
+
+    private ScheduleBootstrap bootstrap(long retryDelay) {
+        when(excelParser.getSnapshot()).thenAnswer(invocation -> snapshot.get());
+        bootstrap = new ScheduleBootstrap(downloadExcel, excelParser, mock(ScheduleChangeNotifier.class));
+        ReflectionTestUtils.setField(bootstrap, "retryDelayMillis", retryDelay);
+        return bootstrap;
+    }
+
+    private static ScheduleSnapshot schedule(long version) {
+        LessonVSU lesson = new LessonVSU();
+        lesson.setNumber("1");
+        lesson.setSubject("Математика");
+        lesson.setLector("Дрозд Е. М.");
+        lesson.setAuditorium("1-101");
+        lesson.setTime("8.30-9.50");
+        return new ScheduleSnapshot(version, Map.of("24ИСиТ1д_1", Map.of(WeekDay.MONDAY, List.of(lesson))));
+    }
+
+    private void awaitState(ScheduleBootstrap.State state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bootstrap.getState() != state && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(state, bootstrap.getState());
+    }
+
+    @AfterEach
+    void tearDown() {
+        bootstrap.shutdown();
+    }
+
+    @Test
+    void startsLoadingAndBecomesReadyInBackground() throws Exception {
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            snapshot.set(schedule(1));
+            return null;
+        }).when(excelParser).parseExel();
+
+        bootstrap(60_000).start();
+        assertTrue(bootstrap.isLoading());
+
+        awaitState(ScheduleBootstrap.State.READY);
+    }
+
+    @Test
+    void retriesUntilScheduleLoads() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() == 3) snapshot.set(schedule(1));
+            return null;
+        }).when(excelParser).parseExel();
+
+        bootstrap(20).start();
+
+        awaitState(ScheduleBootstrap.State.READY);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void servesSnapshotFileAndStaysStaleWhenRefreshFails() throws Exception {
+        when(excelParser.loadSnapshotFile()).thenAnswer(invocation -> {
+            snapshot.set(schedule(1));
+            return true;
+        });
+        doAnswer(invocation -> {
+            throw new IllegalStateException("broken workbook");
+        }).when(excelParser).parseExel();
+
+        bootstrap(60_000).start();
+        assertEquals(ScheduleBootstrap.State.STALE, bootstrap.getState());
+        Thread.sleep(100);
+        assertEquals(ScheduleBootstrap.State.STALE, bootstrap.getState());
+
+        // Ежедневное обновление удалось - срез снова свежий
+        doAnswer(invocation -> {
+            snapshot.set(schedule(2));
+            return null;
+        }).when(excelParser).parseExel();
+        when(downloadExcel.downloadSchedules()).thenReturn(true);
+        bootstrap.downloadExcel();
+        assertEquals(ScheduleBootstrap.State.READY, bootstrap.getState());
+    }
+
+    @Test
+    void dailyRefreshWaitsForBootstrap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlapped = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (running.incrementAndGet() > 1) overlapped.incrementAndGet();
+            Thread.sleep(200);
+            snapshot.set(schedule(1));
+            running.decrementAndGet();
+            return null;
+        }).when(excelParser).parseExel();
+        when(downloadExcel.downloadSchedules()).thenReturn(true);
+
+        bootstrap(60_000).start();
+        bootstrap.downloadExcel();
+
+        assertEquals(0, overlapped.get());
+        assertEquals(ScheduleBootstrap.State.READY, bootstrap.getState());
+    }
+
+    @Test
+    void keepsRetryingWhileServingSnapshotFile() throws Exception {
+        when(excelParser.loadSnapshotFile()).thenAnswer(invocation -> {
+            snapshot.set(schedule(1));
+            return true;
+        });
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() < 3) throw new IllegalStateException("site unavailable");
+            snapshot.set(schedule(2));
+            return null;
+        }).when(excelParser).parseExel();
+
+        bootstrap(20).start();
+        assertEquals(ScheduleBootstrap.State.STALE, bootstrap.getState());
+
+        awaitState(ScheduleBootstrap.State.READY);
+        assertEquals(3, attempts.get());
+    }
+}
@@ -0,0 +1,46 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.Test;
+import sia.telegramvsu.model.LessonVSU;
+import sia.telegramvsu.model.ScheduleDiff;
+import sia.telegramvsu.model.WeekDay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleChangeNotifierTest {
+
+    @Test
+    void longMessageIsCutBetweenLines() {
+        List<ScheduleDiff.Change> changes = new ArrayList<>();
+        for (WeekDay day : WeekDay.values()) {
+            for (int i = 0; i < 60; i++) {
+                changes.add(new ScheduleDiff.Change(ScheduleDiff.Type.ADDED, day, null, lesson(String.valueOf(i % 8 + 1))));
+            }
+        }
+
+        String text = ScheduleChangeNotifier.format("24ИСиТ1д_1", changes);
+
+        assertTrue(text.length() <= 4001, "length " + text.length());
+        assertTrue(text.endsWith("\n…"));
+        assertEquals(count(text, "<u>"), count(text, "</u>"));
+        assertEquals(count(text, "<b>"), count(text, "</b>"));
+    }
+
+    private static int count(String text, String tag) {
+        return text.split(tag, -1).length - 1;
+    }
+
+    private static LessonVSU lesson(String number) {
+        LessonVSU lesson = new LessonVSU();
+        lesson.setNumber(number);
+        lesson.setTime("8.30-9.50");
+        lesson.setSubject("Математический анализ (лек)");
+        lesson.setLector("Дрозд Е. М.");
+        lesson.setAuditorium("1-101");
+        return lesson;
+    }
+}
@@ -0,0 +1,52 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.Test;
+import sia.telegramvsu.model.WeekDay;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScheduleRenderCacheTest {
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private String render(String html) {
+        renders.incrementAndGet();
+        return html;
+    }
+
+    @Test
+    void invalidateClearsEntries() {
+        ScheduleRenderCache cache = new ScheduleRenderCache(10);
+        cache.invalidate(1);
+        cache.get(1, ScheduleRenderCache.Kind.STUDENT, "24ИСиТ1д_1", WeekDay.MONDAY, () -> render("понедельник"));
+        cache.get(1, ScheduleRenderCache.Kind.STUDENT, "24ИСиТ1д_1", WeekDay.MONDAY, () -> render("понедельник"));
+        assertEquals(1, renders.get());
+        assertEquals(1, cache.size());
+
+        cache.invalidate(2);
+
+        assertEquals(0, cache.size());
+        assertEquals("новый понедельник",
+                cache.get(2, ScheduleRenderCache.Kind.STUDENT, "24ИСиТ1д_1", WeekDay.MONDAY, () -> render("новый понедельник")));
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void renderOfOldVersionIsNotStoredAfterNewerOneIsPublished() {
+        ScheduleRenderCache cache = new ScheduleRenderCache(10);
+        cache.invalidate(1);
+
+        // Ответ начали собирать по версии 1, а пока собирали, вышла версия 2
+        String html = cache.get(1, ScheduleRenderCache.Kind.TEACHER, "Дрозд Е. М.", null, () -> {
+            cache.invalidate(2);
+            return render("старая неделя");
+        });
+
+        assertEquals("старая неделя", html);
+        assertEquals(0, cache.size());
+        cache.get(1, ScheduleRenderCache.Kind.TEACHER, "Дрозд Е. М.", null, () -> render("старая неделя"));
+        assertEquals(2, renders.get());
+    }
+}
@@ -0,0 +1,68 @@
+package sia.telegramvsu.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import sia.telegramvsu.model.WeekDay;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+// Лист в формате расписания ВГУ: группы в строке 13, занятия с 15-й строки по три строки на пару
+class ScheduleWorkbookFixture {
+
+    static final int LESSONS_PER_DAY = 8;
+
+    static void write(File file, String groupPrefix, int groupCount) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream fos = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Расписание");
+            sheet.createRow(0).createCell(0).setCellValue("Расписание занятий");
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, groupCount + 2));
+
+            Row groups = sheet.createRow(13);
+            groups.createCell(0).setCellValue("День");
+            groups.createCell(2).setCellValue("Время");
+            for (int g = 0; g < groupCount; g++) {
+                groups.createCell(3 + g).setCellValue(" " + groupPrefix + g + " ");
+            }
+
+            int rowNum = 15;
+            for (WeekDay weekDay : WeekDay.values()) {
+                int dayStart = rowNum;
+                for (int lesson = 1; lesson <= LESSONS_PER_DAY; lesson++) {
+                    Row first = sheet.createRow(rowNum);
+                    Row second = sheet.createRow(rowNum + 1);
+                    // третья строка пары иногда отсутствует в файле
+                    Row third = lesson == 3 ? null : sheet.createRow(rowNum + 2);
+
+                    first.createCell(2).setCellValue("№" + lesson);
+                    second.createCell(2).setCellValue("8." + lesson + "0-9." + lesson + "5");
+                    for (int g = 0; g < groupCount; g++) {
+                        if ((g + lesson + weekDay.ordinal()) % 4 == 0) continue;
+                        first.createCell(3 + g).setCellValue("Предмет " + lesson + "-" + g);
+                        second.createCell(3 + g).setCellValue("Преподаватель " + (g + lesson) % 7 + " А. Б.");
+                        if (third != null) {
+                            third.createCell(3 + g).setCellValue(100 + (g * 7 + lesson) % 40);
+                        }
+                    }
+                    // поток: одна пара на две соседние группы
+                    if (groupCount > 1 && lesson == 2) {
+                        sheet.addMergedRegion(new CellRangeAddress(rowNum, rowNum, 3, 4));
+                    }
+                    rowNum += 3;
+                }
+                sheet.getRow(dayStart).createCell(0).setCellValue(weekDay.dayString);
+                sheet.getRow(dayStart).createCell(1).setCellValue("0" + (weekDay.ordinal() + 1) + ".09");
+                sheet.addMergedRegion(new CellRangeAddress(dayStart, rowNum - 1, 0, 0));
+                sheet.addMergedRegion(new CellRangeAddress(dayStart, rowNum - 1, 1, 1));
+            }
+
+            for (int footer = 0; footer < 5; footer++) {
+                sheet.createRow(rowNum + footer).createCell(3).setCellValue("Декан");
+            }
+            workbook.write(fos);
+        }
+    }
+}
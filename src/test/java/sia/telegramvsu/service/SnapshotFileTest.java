@@ -0,0 +1,68 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sia.telegramvsu.model.LessonVSU;
+import sia.telegramvsu.model.WeekDay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotFileTest {
+
+    @TempDir
+    File folder;
+
+    private Map<String, ExcelParser.Segment> segments() {
+        LessonVSU lesson = new LessonVSU();
+        lesson.setNumber("1");
+        lesson.setTime("8.30-9.50");
+        lesson.setSubject("Математика");
+        lesson.setLector("Дрозд Е. М.");
+        lesson.setAuditorium("1-101");
+        LessonVSU empty = new LessonVSU();
+        empty.setNumber("2");
+        empty.setSubject("");
+
+        Map<String, ExcelParser.Segment> segments = new LinkedHashMap<>();
+        segments.put("fit.xlsx", new ExcelParser.Segment(1000, 2000,
+                Map.of("24ИСиТ1д_1", Map.of(WeekDay.MONDAY, List.of(lesson, empty), WeekDay.FRIDAY, List.of(lesson)))));
+        segments.put("law.xlsx", new ExcelParser.Segment(3000, 4000, Map.of()));
+        return segments;
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        File file = new File(folder, "schedule.snapshot");
+        SnapshotFile.write(file, 7, 123456, segments());
+
+        for (boolean mmap : new boolean[]{false, true}) {
+            SnapshotFile.Contents contents = SnapshotFile.read(file, mmap);
+            assertEquals(7, contents.version());
+            assertEquals(123456, contents.createdAt());
+            assertEquals(List.of("fit.xlsx", "law.xlsx"), List.copyOf(contents.segments().keySet()));
+            assertEquals(segments(), contents.segments());
+            assertNull(contents.segments().get("fit.xlsx").groups().get("24ИСиТ1д_1").get(WeekDay.MONDAY).get(1).getLector());
+        }
+    }
+
+    @Test
+    void rejectsCorruptedFile() throws IOException {
+        File file = new File(folder, "schedule.snapshot");
+        SnapshotFile.write(file, 7, 123456, segments());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(40);
+            raf.write(raf.read() ^ 0xFF);
+        }
+
+        assertThrows(IOException.class, () -> SnapshotFile.read(file, false));
+    }
+}
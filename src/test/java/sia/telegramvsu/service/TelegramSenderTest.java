@@ -0,0 +1,191 @@
+package sia.telegramvsu.service;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TelegramSenderTest {
+
+    private final AbsSender bot = mock(AbsSender.class);
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<Long> sentAt = new CopyOnWriteArrayList<>();
+    private TelegramSender sender;
+
+    @AfterEach
+    void stop() {
+        sender.shutdown();
+    }
+
+    @Test
+    void interactiveRepliesGoBeforeBulk() throws Exception {
+        answerWith(method -> CompletableFuture.completedFuture(true));
+        sender = new TelegramSender(1000, 1000, 10, 1, 3, 5_000);
+
+        for (int i = 0; i < 3; i++) sender.send(i, message(i, "bulk"), TelegramSender.Priority.BULK);
+        sender.send(10, message(10, "reply"), TelegramSender.Priority.INTERACTIVE);
+        sender.start(bot);
+
+        awaitSent(4);
+        assertEquals("reply", sent.get(0));
+    }
+
+    @Test
+    void respectsPerChatRate() throws Exception {
+        answerWith(method -> CompletableFuture.completedFuture(true));
+        sender = new TelegramSender(1000, 10, 1, 4, 3, 5_000);
+        sender.start(bot);
+
+        for (int i = 0; i < 4; i++) sender.send(1, message(1, "m" + i), TelegramSender.Priority.INTERACTIVE);
+
+        awaitSent(4);
+        assertEquals(List.of("m0", "m1", "m2", "m3"), sent);
+        long spreadMillis = TimeUnit.NANOSECONDS.toMillis(sentAt.get(3) - sentAt.get(0));
+        assertTrue(spreadMillis >= 250, "sent within " + spreadMillis + " ms");
+    }
+
+    @Test
+    void retriesAfterTooManyRequests() throws Exception {
+        TelegramApiRequestException tooMany = mock(TelegramApiRequestException.class);
+        when(tooMany.getErrorCode()).thenReturn(429);
+        when(tooMany.getParameters()).thenReturn(new ResponseParameters(null, 1));
+        AtomicBoolean limited = new AtomicBoolean(true);
+        answerWith(method -> limited.getAndSet(false)
+                ? CompletableFuture.failedFuture(tooMany) : CompletableFuture.completedFuture(true));
+        sender = new TelegramSender(1000, 1000, 10, 1, 3, 5_000);
+        sender.start(bot);
+
+        CompletableFuture<Boolean> done = sender.send(1, message(1, "hello"), TelegramSender.Priority.INTERACTIVE);
+
+        assertTrue(done.get(5, TimeUnit.SECONDS));
+        assertEquals(2, sent.size());
+        assertEquals(1, sender.getRetried());
+        assertEquals(1, sender.getSent());
+    }
+
+    @Test
+    void callbackAnswersSkipChatLimit() throws Exception {
+        answerWith(method -> CompletableFuture.completedFuture(true));
+        sender = new TelegramSender(1000, 2, 1, 4, 3, 5_000);
+        sender.start(bot);
+
+        sender.send(1, message(1, "m0"), TelegramSender.Priority.INTERACTIVE);
+        sender.send(1, message(1, "m1"), TelegramSender.Priority.INTERACTIVE);
+        AnswerCallbackQuery answer = new AnswerCallbackQuery("callback");
+        answer.setText("answer");
+        sender.send(1, answer, TelegramSender.Priority.INTERACTIVE);
+
+        awaitSent(3);
+        assertEquals(List.of("m0", "answer", "m1"), sent);
+    }
+
+    @Test
+    void keepsChatOrderWhileRetrying() throws Exception {
+        TelegramApiRequestException tooMany = mock(TelegramApiRequestException.class);
+        when(tooMany.getErrorCode()).thenReturn(429);
+        when(tooMany.getParameters()).thenReturn(new ResponseParameters(null, 1));
+        AtomicBoolean limited = new AtomicBoolean(true);
+        answerWith(method -> limited.getAndSet(false)
+                ? CompletableFuture.failedFuture(tooMany) : CompletableFuture.completedFuture(true));
+        sender = new TelegramSender(1000, 1000, 10, 1, 3, 5_000);
+        sender.start(bot);
+
+        sender.send(1, message(1, "m0"), TelegramSender.Priority.INTERACTIVE);
+        sender.send(1, message(1, "m1"), TelegramSender.Priority.INTERACTIVE);
+        sender.send(2, message(2, "other"), TelegramSender.Priority.INTERACTIVE);
+
+        awaitSent(4);
+        // Другой чат не ждёт, а m1 уходит только после повтора m0
+        assertEquals(List.of("m0", "other", "m0", "m1"), sent);
+    }
+
+    @Test
+    void retryAfterShutdownCompletesWithFalse() throws Exception {
+        TelegramApiRequestException tooMany = mock(TelegramApiRequestException.class);
+        when(tooMany.getErrorCode()).thenReturn(429);
+        when(tooMany.getParameters()).thenReturn(new ResponseParameters(null, 1));
+        CompletableFuture<Serializable> response = new CompletableFuture<>();
+        answerWith(method -> response);
+        sender = new TelegramSender(1000, 1000, 10, 1, 3, 0);
+        sender.start(bot);
+
+        CompletableFuture<Boolean> done = sender.send(1, message(1, "m0"), TelegramSender.Priority.INTERACTIVE);
+        awaitSent(1);
+        sender.shutdown();
+        response.completeExceptionally(tooMany);
+
+        assertFalse(done.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sendAfterShutdownCompletesWithFalse() throws Exception {
+        sender = new TelegramSender(1000, 1000, 10, 1, 3, 0);
+        sender.start(bot);
+        sender.shutdown();
+
+        assertFalse(sender.send(1, message(1, "late"), TelegramSender.Priority.INTERACTIVE).get(1, TimeUnit.SECONDS));
+        assertEquals(1, sender.getFailed());
+        assertEquals(0, sender.getQueueDepth());
+    }
+
+    @Test
+    void recordsLatencyFromQueueToSend() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            answerWith(method -> CompletableFuture.completedFuture(true));
+            sender = new TelegramSender(1000, 1000, 10, 1, 3, 5_000);
+            sender.start(bot);
+
+            assertTrue(sender.send(1, message(1, "hello"), TelegramSender.Priority.BULK).get(5, TimeUnit.SECONDS));
+
+            Timer timer = registry.get("telegram.latency").tag("priority", "BULK").timer();
+            assertEquals(1, timer.count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void answerWith(java.util.function.Function<BotApiMethod<?>, CompletableFuture<Serializable>> answer) throws Exception {
+        when(bot.executeAsync(any(BotApiMethod.class))).thenAnswer(invocation -> {
+                BotApiMethod<?> method = invocation.getArgument(0);
+            sent.add(method instanceof AnswerCallbackQuery callback ? callback.getText() : ((SendMessage) method).getText());
+            sentAt.add(System.nanoTime());
+            return answer.apply(method);
+        });
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((sent.size() < count || sender.getQueueDepth() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, sent.size());
+    }
+
+    private static SendMessage message(long chatId, String text) {
+        return new SendMessage(String.valueOf(chatId), text);
+    }
+}
@@ -0,0 +1,100 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdateDispatcherTest {
+
+    private UpdateDispatcher dispatcher;
+
+    @AfterEach
+    void stop() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void keepsOrderWithinChatAndDrainsOnShutdown() {
+        dispatcher = new UpdateDispatcher(8, 100, 10_000);
+        Map<Long, List<Integer>> seen = new HashMap<>();
+
+        for (int i = 0; i < 500; i++) {
+            dispatcher.submit(update(i, i % 5), update -> {
+                long chatId = UpdateDispatcher.chatIdOf(update);
+                synchronized (seen) {
+                    seen.computeIfAbsent(chatId, id -> new ArrayList<>()).add(update.getUpdateId());
+                }
+            });
+        }
+        dispatcher.shutdown();
+
+        assertEquals(500, dispatcher.getProcessed());
+        for (long chat = 0; chat < 5; chat++) {
+            List<Integer> ids = seen.get(chat);
+            assertEquals(100, ids.size());
+            List<Integer> sorted = new ArrayList<>(ids);
+            Collections.sort(sorted);
+            assertEquals(sorted, ids);
+        }
+    }
+
+    @Test
+    void slowChatDoesNotBlockOthers() throws InterruptedException {
+        dispatcher = new UpdateDispatcher(4, 100, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch others = new CountDownLatch(10);
+
+        dispatcher.submit(update(0, 1), update -> await(release));
+        for (int i = 1; i <= 10; i++) {
+            dispatcher.submit(update(i, 100 + i), update -> others.countDown());
+        }
+
+        assertTrue(others.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void offerRefusesWhenFull() {
+        dispatcher = new UpdateDispatcher(1, 2, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(dispatcher.offer(update(1, 1), update -> await(release)));
+        assertTrue(dispatcher.offer(update(2, 1), update -> await(release)));
+        assertFalse(dispatcher.offer(update(3, 2), update -> { }));
+        assertEquals(1, dispatcher.getRejected());
+        release.countDown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Update update(int id, long chatId) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        Message message = new Message();
+        message.setChat(chat);
+        Update update = new Update();
+        update.setUpdateId(id);
+        update.setMessage(message);
+        return update;
+    }
+}
@@ -0,0 +1,56 @@
+package sia.telegramvsu.service;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdateRouterTest {
+
+    @Test
+    void dispatchesByKeyAndPassesArguments() {
+        List<String> calls = new ArrayList<>();
+        UpdateRouter<Long> router = new UpdateRouter<Long>(':')
+                .on("LESSON_3", (chatId, args) -> calls.add(chatId + " lesson " + args))
+                .on("CHANGE_DAY", (chatId, args) -> calls.add(chatId + " change [" + args + "]"));
+
+        assertTrue(router.dispatch("LESSON_3:FRIDAY", 7L));
+        assertTrue(router.dispatch("CHANGE_DAY", 7L));
+        assertFalse(router.dispatch("LESSON_9:FRIDAY", 7L));
+        assertFalse(router.dispatch(null, 7L));
+
+        assertEquals(List.of("7 lesson FRIDAY", "7 change []"), calls);
+    }
+
+    @Test
+    void refusesDuplicateRoutes() {
+        UpdateRouter<Long> router = new UpdateRouter<Long>(' ').on("/free", (chatId, args) -> { });
+
+        assertThrows(IllegalStateException.class, () -> router.on("/free", (chatId, args) -> { }));
+    }
+
+    @Test
+    void recordsNamedRoutesInMicrometer() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            UpdateRouter<Long> router = new UpdateRouter<Long>(':', "test-callbacks")
+                    .on("ALL_BUTTON", (chatId, args) -> { });
+            router.dispatch("ALL_BUTTON", 7L);
+            router.dispatch("ALL_BUTTON", 8L);
+
+            Timer timer = registry.get("bot.route").tag("router", "test-callbacks").tag("route", "ALL_BUTTON").timer();
+            assertEquals(2, timer.count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+}
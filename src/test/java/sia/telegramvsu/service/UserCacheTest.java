@@ -0,0 +1,104 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.Test;
+import sia.telegramvsu.model.User;
+import sia.telegramvsu.model.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTest {
+
+    private final UserRepository repository = mock(UserRepository.class);
+    private final UserCache cache = new UserCache(repository, 2, 60_000);
+
+    @Test
+    void readsThroughOnceAndCachesMisses() {
+        when(repository.findById(1L)).thenReturn(Optional.of(user(1L, "24ИСиТ1д_1")));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("24ИСиТ1д_1", cache.findById(1L).orElseThrow().getGroup());
+            assertTrue(cache.findById(2L).isEmpty());
+        }
+
+        verify(repository, times(1)).findById(1L);
+        verify(repository, times(1)).findById(2L);
+        assertEquals(8, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void coalescesWritesAndFlushesThemInOneBatch() {
+        User user = user(1L, null);
+        cache.save(user);
+        user.setGroup("24ИСиТ1д_1");
+        cache.save(user);
+        cache.save(user(2L, "Дрозд Е. М."));
+        verify(repository, never()).saveAll(anyIterable());
+
+        cache.flush();
+
+        verify(repository, times(1)).saveAll(List.of(user(1L, "24ИСиТ1д_1"), user(2L, "Дрозд Е. М.")));
+        assertEquals(1, cache.getFlushes());
+        assertEquals(2, cache.getFlushedUsers());
+        assertEquals(0, cache.getPending());
+    }
+
+    @Test
+    void evictedUserIsServedFromPendingWrites() {
+        cache.save(user(1L, "24ИСиТ1д_1"));
+        cache.save(user(2L, null));
+        cache.save(user(3L, null));
+
+        assertEquals("24ИСиТ1д_1", cache.findById(1L).orElseThrow().getGroup());
+        verify(repository, never()).findById(1L);
+    }
+
+    @Test
+    void failedFlushKeepsWritesPending() {
+        when(repository.saveAll(anyIterable())).thenThrow(new IllegalStateException("db down"));
+        cache.save(user(1L, "24ИСиТ1д_1"));
+
+        cache.flush();
+
+        assertEquals(1, cache.getPending());
+        assertEquals(1, cache.getFlushErrors());
+    }
+
+    @Test
+    void userBeingFlushedIsNotReadFromDatabase() {
+        cache.save(user(1L, "24ИСиТ1д_1"));
+        cache.save(user(2L, null));
+        cache.save(user(3L, null));
+        when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            // Запись уже не в dirty, но ещё не в базе
+            assertEquals("24ИСиТ1д_1", cache.findById(1L).orElseThrow().getGroup());
+            cache.save(user(2L, "24ИСиТ1д_2"));
+            return List.of();
+        });
+
+        cache.flush();
+
+        verify(repository, never()).findById(1L);
+        // Сохранённое во время записи ждёт следующей
+        assertEquals(1, cache.getPending());
+    }
+
+    private static User user(Long id, String group) {
+        User user = new User();
+        user.setId(id);
+        user.setUserName("user" + id);
+        user.setStatus("Cтудент");
+        user.setGroup(group);
+        return user;
+    }
+}
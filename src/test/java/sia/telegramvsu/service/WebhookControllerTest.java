@@ -0,0 +1,85 @@
+package sia.telegramvsu.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class WebhookControllerTest {
+
+    private static final String UPDATE = """
+            {"update_id": 42, "message": {"message_id": 7, "date": 1700000000,
+             "chat": {"id": 1001, "type": "private"}, "text": "/free"}}
+            """;
+
+    private final WebhookController controller = new WebhookController();
+    private final List<Update> received = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean full = new AtomicBoolean();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "secret", "s3cret");
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                .addPlaceholderValue("webhook.path", "/telegram")
+                .build();
+    }
+
+    @Test
+    void acceptsUpdatesWithSecret() throws Exception {
+        controller.start(update -> !full.get() && received.add(update));
+
+        mvc.perform(update(UPDATE, "s3cret")).andExpect(status().isOk());
+
+        assertEquals(1, received.size());
+        assertEquals(42, received.get(0).getUpdateId());
+        assertEquals("/free", received.get(0).getMessage().getText());
+        assertEquals(1001L, UpdateDispatcher.chatIdOf(received.get(0)));
+    }
+
+    @Test
+    void rejectsWrongSecretBadBodyAndFullQueue() throws Exception {
+        controller.start(update -> !full.get() && received.add(update));
+
+        mvc.perform(update(UPDATE, "wrong")).andExpect(status().isUnauthorized());
+        mvc.perform(update(UPDATE, null)).andExpect(status().isUnauthorized());
+        mvc.perform(update("{not json", "s3cret")).andExpect(status().isBadRequest());
+        full.set(true);
+        mvc.perform(update(UPDATE, "s3cret")).andExpect(status().isServiceUnavailable());
+
+        assertEquals(0, received.size());
+        assertEquals(2, controller.getUnauthorized());
+        assertEquals(1, controller.getRejected());
+    }
+
+    @Test
+    void notFoundUntilWebhookModeStarts() throws Exception {
+        mvc.perform(update(UPDATE, "s3cret")).andExpect(status().isNotFound());
+    }
+
+    // Случайный секрет на каждом экземпляре ломает webhook за балансировщиком - без настройки не запускаемся
+    @Test
+    void refusesToStartWithoutSecret() {
+        ReflectionTestUtils.setField(controller, "secret", "");
+
+        assertThrows(IllegalStateException.class, () -> controller.start(received::add));
+    }
+
+    private static MockHttpServletRequestBuilder update(String body, String secret) {
+        MockHttpServletRequestBuilder request = post("/telegram").contentType(MediaType.APPLICATION_JSON).content(body);
+        return secret == null ? request : request.header(WebhookController.SECRET_HEADER, secret);
+    }
+}